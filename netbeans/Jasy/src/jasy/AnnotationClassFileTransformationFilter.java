@@ -0,0 +1,126 @@
+package jasy;
+
+import jasy.lang.ClassPreFilter;
+import java.security.ProtectionDomain;
+
+/**
+ * Accepts classes which are annotated with a given annotation. The class file
+ * is read directly: first, the constant pool is scanned for the annotation
+ * descriptor, and only if it is found, the RuntimeVisibleAnnotations and
+ * RuntimeInvisibleAnnotations attributes of the class are examined. Nothing is
+ * allocated for classes which are not accepted.
+ */
+public class AnnotationClassFileTransformationFilter implements ClassFileTransformationFilter {
+    private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = ClassPreFilter.toModifiedUTF8("RuntimeVisibleAnnotations");
+    private static final byte[] RUNTIME_INVISIBLE_ANNOTATIONS = ClassPreFilter.toModifiedUTF8("RuntimeInvisibleAnnotations");
+
+    private byte[] annotationDescriptor;
+
+    public AnnotationClassFileTransformationFilter(Class<?> annotationClass) {
+        this("L" + annotationClass.getName().replace(".", "/") + ";");
+    }
+
+    public AnnotationClassFileTransformationFilter(String annotationDescriptor) {
+        this.annotationDescriptor = ClassPreFilter.toModifiedUTF8(annotationDescriptor);
+    }
+
+    @Override
+    public boolean shouldTransform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        return
+            ClassPreFilter.containsUTF8(classfileBuffer, annotationDescriptor) &&
+            isAnnotated(classfileBuffer);
+    }
+
+    private boolean isAnnotated(byte[] b) {
+        int constantPoolCount = ClassPreFilter.readUnsignedShort(b, 8);
+        // Skip access flags, this class and super class
+        int offset = ClassPreFilter.getConstantPoolEntryOffset(b, constantPoolCount) + 6;
+        int interfacesCount = ClassPreFilter.readUnsignedShort(b, offset);
+        offset += 2 + interfacesCount * 2;
+        // Skip fields and methods
+        for(int i = 0; i < 2; i++) {
+            int memberCount = ClassPreFilter.readUnsignedShort(b, offset);
+            offset += 2;
+            for(int j = 0; j < memberCount; j++)
+                offset = skipAttributes(b, offset + 6);
+        }
+
+        int attributesCount = ClassPreFilter.readUnsignedShort(b, offset);
+        offset += 2;
+        for(int i = 0; i < attributesCount; i++) {
+            int nameIndex = ClassPreFilter.readUnsignedShort(b, offset);
+            int length = readInt(b, offset + 2);
+
+            // Annotations of class retention are invisible
+            if(isUTF8(b, nameIndex, RUNTIME_VISIBLE_ANNOTATIONS) || isUTF8(b, nameIndex, RUNTIME_INVISIBLE_ANNOTATIONS)) {
+                int annotationsCount = ClassPreFilter.readUnsignedShort(b, offset + 6);
+                int annotationOffset = offset + 8;
+                for(int j = 0; j < annotationsCount; j++) {
+                    int typeIndex = ClassPreFilter.readUnsignedShort(b, annotationOffset);
+                    if(isUTF8(b, typeIndex, annotationDescriptor))
+                        return true;
+                    annotationOffset = skipAnnotation(b, annotationOffset);
+                }
+            }
+
+            offset += 6 + length;
+        }
+
+        return false;
+    }
+
+    private static int skipAttributes(byte[] b, int offset) {
+        int attributesCount = ClassPreFilter.readUnsignedShort(b, offset);
+        offset += 2;
+        for(int i = 0; i < attributesCount; i++)
+            offset += 6 + readInt(b, offset + 2);
+        return offset;
+    }
+
+    private static int skipAnnotation(byte[] b, int offset) {
+        int pairsCount = ClassPreFilter.readUnsignedShort(b, offset + 2);
+        offset += 4;
+        for(int i = 0; i < pairsCount; i++)
+            offset = skipElementValue(b, offset + 2);
+        return offset;
+    }
+
+    private static int skipElementValue(byte[] b, int offset) {
+        switch(b[offset]) {
+            case 'e':
+                return offset + 5;
+            case '@':
+                return skipAnnotation(b, offset + 1);
+            case '[':
+                int valuesCount = ClassPreFilter.readUnsignedShort(b, offset + 1);
+                offset += 3;
+                for(int i = 0; i < valuesCount; i++)
+                    offset = skipElementValue(b, offset);
+                return offset;
+            default:
+                // Constant values and class literals
+                return offset + 3;
+        }
+    }
+
+    private static boolean isUTF8(byte[] b, int index, byte[] value) {
+        int offset = ClassPreFilter.getConstantPoolEntryOffset(b, index);
+        int length = ClassPreFilter.readUnsignedShort(b, offset + 1);
+
+        if(length != value.length)
+            return false;
+
+        for(int i = 0; i < length; i++) {
+            if(b[offset + 3 + i] != value[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static int readInt(byte[] b, int offset) {
+        return
+            ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16) |
+            ((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+    }
+}
@@ -6,6 +6,12 @@ import java.security.ProtectionDomain;
 import javassist.ClassPool;
 
 public interface Interceptor {
+    /**
+     * The returned system interceptor is retained for as long as loader is, 
+     * so it must neither refer to loader nor to protectionDomain; otherwise, 
+     * loader can never be unloaded. Both are passed to the system interceptor 
+     * for each class instead.
+     */
     SystemInterceptor interceptSystem(ClassPool classPool, ClassLoader loader, ProtectionDomain protectionDomain);
     default ClassFileTransformer toClassFileTransformer(ClassFileTransformationFilter filter) {
         return new InterceptorClassFileTransformer(filter, this);
@@ -1,10 +1,14 @@
 package jasy;
 
-import java.io.ByteArrayInputStream;
+import jasy.lang.ClassLoaderMap;
+import jasy.runtime.javassist.ClassPoolManager;
 import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.ProtectionDomain;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -13,6 +17,7 @@ import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.CtConstructor;
 import javassist.CtMethod;
+import javassist.LoaderClassPath;
 import javassist.expr.ConstructorCall;
 import javassist.expr.ExprEditor;
 import javassist.expr.FieldAccess;
@@ -22,27 +27,109 @@ import javassist.expr.NewExpr;
 public class InterceptorClassFileTransformer implements ClassFileTransformer {
     private ClassFileTransformationFilter filter;
     private Interceptor interceptor;
-    private ClassPool classPool;
-    private SystemInterceptor systemInterceptor;
+    private int maxRetainedClasses;
+    // Class loaders are weakly referenced, such that they can be unloaded along
+    // with their class pools; the class path of a pool refers to its loader 
+    // weakly as well
+    private final ClassLoaderMap<LoaderContext> loaderContexts = new ClassLoaderMap<>();
+    // The contexts, for which the current thread is intercepting the system
+    private final ThreadLocal<Set<LoaderContext>> systemInterceptingContexts = ThreadLocal.withInitial(() -> new HashSet<>());
 
     public InterceptorClassFileTransformer(ClassFileTransformationFilter filter, Interceptor interceptor) {
+        this(filter, interceptor, ClassPoolManager.DEFAULT_MAX_RETAINED_CLASSES);
+    }
+
+    /**
+     * @param maxRetainedClasses The maximum number of transformed classes 
+     * retained per class loader for later reference; see ClassPoolManager.
+     */
+    public InterceptorClassFileTransformer(ClassFileTransformationFilter filter, Interceptor interceptor, int maxRetainedClasses) {
         this.filter = filter;
         this.interceptor = interceptor;
-        this.classPool = ClassPool.getDefault();
+        this.maxRetainedClasses = maxRetainedClasses;
+    }
+    
+    private static class LoaderContext {
+        private final ClassPoolManager classPoolManager;
+        private final AtomicReference<SystemInterceptor> systemInterceptor = new AtomicReference<>();
+
+        private LoaderContext(ClassLoader loader, int maxRetainedClasses) {
+            ClassPool classPool = new ClassPool();
+            classPool.appendSystemPath();
+            if(loader != null)
+                classPool.insertClassPath(new LoaderClassPath(loader));
+            classPoolManager = new ClassPoolManager(classPool, maxRetainedClasses);
+        }
+    }
+    
+    private LoaderContext getLoaderContext(ClassLoader loader) {
+        LoaderContext context = loaderContexts.get(loader);
+        
+        if(context == null)
+            context = loaderContexts.getOrPut(loader, new LoaderContext(loader, maxRetainedClasses));
+        
+        return context;
+    }
+    
+    /**
+     * @return The number of transformed classes currently retained in the 
+     * class pools of all class loaders.
+     */
+    public int getRetainedClassCount() {
+        return loaderContexts.values().stream().mapToInt(c -> c.classPoolManager.getRetainedClassCount()).sum();
+    }
+    
+    public long getEvictionCount() {
+        return loaderContexts.values().stream().mapToLong(c -> c.classPoolManager.getEvictionCount()).sum();
+    }
+    
+    public int getClassPoolCount() {
+        return loaderContexts.values().size();
+    }
+    
+    private SystemInterceptor getSystemInterceptor(LoaderContext context, ClassLoader loader, String className, ProtectionDomain protectionDomain) {
+        SystemInterceptor systemInterceptor = context.systemInterceptor.get();
+        
+        if(systemInterceptor == null) {
+            // No lock is held while intercepting the system, since the 
+            // interceptor may load classes through other class loaders, which 
+            // other threads may be intercepting meanwhile
+            Set<LoaderContext> interceptingContexts = systemInterceptingContexts.get();
+            if(!interceptingContexts.add(context)) {
+                Logger.getLogger(InterceptorClassFileTransformer.class.getName()).log(Level.WARNING, 
+                    "{0} is not intercepted, since it is loaded while the system of its class loader is being intercepted.", className);
+                return null;
+            }
+            
+            try {
+                systemInterceptor = interceptor.interceptSystem(context.classPoolManager.getClassPool(), loader, protectionDomain);
+            } finally {
+                interceptingContexts.remove(context);
+            }
+            
+            // Of the threads intercepting the system concurrently, the first 
+            // one to finish decides the system interceptor used by all
+            if(!context.systemInterceptor.compareAndSet(null, systemInterceptor))
+                systemInterceptor = context.systemInterceptor.get();
+        }
+        
+        return systemInterceptor;
     }
     
     @Override
     public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
         if(filter.shouldTransform(loader, className, classBeingRedefined, protectionDomain, classfileBuffer)) {
-            if(systemInterceptor == null) {
-                systemInterceptor = interceptor.interceptSystem(classPool, loader, protectionDomain);
-            }
+            LoaderContext context = getLoaderContext(loader);
+            SystemInterceptor systemInterceptor = getSystemInterceptor(context, loader, className, protectionDomain);
+            
+            if(systemInterceptor == null)
+                return classfileBuffer;
 
-            CtClass ctClass;
+            CtClass ctClass = null;
             try {
     //            ctClass = classPool.get(className);
-                ctClass = classPool.makeClass(new ByteArrayInputStream(classfileBuffer));
-                ClassInterceptor ci = systemInterceptor.interceptClass(ctClass);
+                ctClass = context.classPoolManager.makeClass(classfileBuffer);
+                ClassInterceptor ci = systemInterceptor.interceptClass(ctClass, loader, protectionDomain);
 
                 for(CtConstructor constructor: ctClass.getDeclaredConstructors()) {
                     BodyInterceptor bi = ci.constructor(constructor);
@@ -56,11 +143,16 @@ public class InterceptorClassFileTransformer implements ClassFileTransformer {
                     bi.close();
                 }
 
-                return ctClass.toBytecode();
+                CtClass transformedClass = ctClass;
+                ctClass = null;
+                return context.classPoolManager.toBytecode(transformedClass);
             } catch (CannotCompileException | IOException | RuntimeException ex) {
                 Logger.getLogger(InterceptorClassFileTransformer.class.getName()).log(Level.SEVERE, null, ex);
 
     //            return classfileBuffer;
+            } finally {
+                if(ctClass != null)
+                    context.classPoolManager.discard(ctClass);
             }
         }
         
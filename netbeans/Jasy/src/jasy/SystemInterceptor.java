@@ -1,7 +1,14 @@
 package jasy;
 
+import java.security.ProtectionDomain;
 import javassist.CtClass;
 
 public interface SystemInterceptor {
-    ClassInterceptor interceptClass(CtClass klass);
+    /**
+     * @param loader The class loader defining klass; or null for the bootstrap
+     * class loader. It is passed for each class, since a system interceptor
+     * must not refer to its class loader.
+     * @param protectionDomain The protection domain of klass.
+     */
+    ClassInterceptor interceptClass(CtClass klass, ClassLoader loader, ProtectionDomain protectionDomain);
 }
@@ -34,7 +34,7 @@ public class IdentityInterceptor implements Interceptor {
 
         return new SystemInterceptor() {
             @Override
-            public ClassInterceptor interceptClass(CtClass klass) {
+            public ClassInterceptor interceptClass(CtClass klass, ClassLoader loader, ProtectionDomain protectionDomain) {
                 try {
                     klass.addInterface(classPool.get(IdHolder.class.getName()));
                     klass.addField(CtField.make("private long id;", klass));
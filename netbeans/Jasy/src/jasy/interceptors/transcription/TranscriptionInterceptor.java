@@ -26,7 +26,7 @@ public class TranscriptionInterceptor implements Interceptor {
     public SystemInterceptor interceptSystem(ClassPool classPool, ClassLoader loader, ProtectionDomain protectionDomain) {
         return new SystemInterceptor() {
             @Override
-            public ClassInterceptor interceptClass(CtClass klass) {
+            public ClassInterceptor interceptClass(CtClass klass, ClassLoader loader, ProtectionDomain protectionDomain) {
                 try {
                     klass.addInterface(classPool.get(Arguable.class.getName()));
                     klass.addField(CtField.make("private static Object id;", klass));
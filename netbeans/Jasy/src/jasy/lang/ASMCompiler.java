@@ -64,6 +64,7 @@ import jasy.runtime.asm.ClassTransformerSequence;
 import jasy.runtime.asm.CommonClassTransformer;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -257,7 +258,9 @@ public class ASMCompiler {
         return moduleCtx;
     }
     
-    public static class MetaProcessing {
+    public static class MetaProcessing implements Serializable {
+        private static final long serialVersionUID = 1L;
+
         public int generatorCount;
         public MetaScope metaScope;
 
@@ -1002,7 +1005,9 @@ public class ASMCompiler {
         return mod;
     }
     
-    public static class Region {
+    public static class Region implements Serializable {
+        private static final long serialVersionUID = 1L;
+
         public Position start;
         public Position end;
 
@@ -1017,7 +1022,9 @@ public class ASMCompiler {
         }
     }
     
-    public static class Position {
+    public static class Position implements Serializable {
+        private static final long serialVersionUID = 1L;
+
         private int line;
         private int column;
 
@@ -0,0 +1,28 @@
+package jasy.lang;
+
+import java.util.List;
+
+/**
+ * Thrown when a simple class name is found in more than one of the imported
+ * packages.
+ */
+public class AmbiguousClassNameException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    
+    private String className;
+    private List<String> candidates;
+
+    public AmbiguousClassNameException(String className, List<String> candidates) {
+        super("Ambiguous class name " + className + ": could be any of " + String.join(", ", candidates) + ".");
+        this.className = className;
+        this.candidates = candidates;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public List<String> getCandidates() {
+        return candidates;
+    }
+}
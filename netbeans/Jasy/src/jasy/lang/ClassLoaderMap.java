@@ -0,0 +1,109 @@
+package jasy.lang;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Map from class loaders to values, which is read without locking. Class
+ * loaders are compared by identity and only weakly referenced, such that they
+ * can be unloaded; thus, a value must not refer to its class loader, since it
+ * would otherwise keep the class loader alive. The bootstrap class loader,
+ * i.e. null, is a valid key.
+ */
+public class ClassLoaderMap<V> {
+    private static class Key extends WeakReference<ClassLoader> {
+        private final int hash;
+
+        private Key(ClassLoader loader, ReferenceQueue<ClassLoader> queue) {
+            super(loader, queue);
+            hash = System.identityHashCode(loader);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(obj == this)
+                return true;
+            if(!(obj instanceof Key))
+                return false;
+            // Cleared keys are only equal to themselves
+            ClassLoader loader = get();
+            return loader != null && loader == ((Key)obj).get();
+        }
+    }
+
+    private final ConcurrentHashMap<Key, V> values = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ClassLoader> staleKeys = new ReferenceQueue<>();
+    private final AtomicReference<V> bootstrapValue = new AtomicReference<>();
+
+    /**
+     * @return The value associated with loader; or null if there is none.
+     */
+    public V get(ClassLoader loader) {
+        if(loader == null)
+            return bootstrapValue.get();
+
+        return values.get(new Key(loader, null));
+    }
+
+    /**
+     * Associates value with loader, unless another value has been associated
+     * with loader first.
+     * @return The value associated with loader, i.e. either value or the one
+     * associated first.
+     */
+    public V getOrPut(ClassLoader loader, V value) {
+        if(loader == null)
+            return bootstrapValue.compareAndSet(null, value) ? value : bootstrapValue.get();
+
+        expungeStaleKeys();
+        V existingValue = values.putIfAbsent(new Key(loader, staleKeys), value);
+        return existingValue != null ? existingValue : value;
+    }
+
+    public void remove(ClassLoader loader) {
+        if(loader == null)
+            bootstrapValue.set(null);
+        else
+            values.remove(new Key(loader, null));
+    }
+
+    public void clear() {
+        bootstrapValue.set(null);
+        values.clear();
+        expungeStaleKeys();
+    }
+
+    /**
+     * @return A snapshot of the values of all class loaders, which have not
+     * been unloaded.
+     */
+    public List<V> values() {
+        expungeStaleKeys();
+        ArrayList<V> snapshot = new ArrayList<>();
+        values.forEach((key, value) -> {
+            // Keys may have been cleared without having been enqueued yet
+            if(key.get() != null)
+                snapshot.add(value);
+        });
+        V value = bootstrapValue.get();
+        if(value != null)
+            snapshot.add(value);
+        return snapshot;
+    }
+
+    private void expungeStaleKeys() {
+        Reference<? extends ClassLoader> staleKey;
+        while((staleKey = staleKeys.poll()) != null)
+            values.remove((Key)staleKey);
+    }
+}
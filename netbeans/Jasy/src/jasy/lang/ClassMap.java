@@ -4,4 +4,21 @@ import java.util.Set;
 
 public interface ClassMap {
     public Set<String> getClassNames(String packageName);
+    
+    /**
+     * @return Whether the package is known, even if it only contains other
+     * packages.
+     */
+    public default boolean containsPackage(String packageName) {
+        return getClassNames(packageName) != null;
+    }
+    
+    /**
+     * @return Whether the package is known and contains a class with the simple
+     * name className.
+     */
+    public default boolean containsClass(String packageName, String className) {
+        Set<String> classNames = getClassNames(packageName);
+        return classNames != null && classNames.contains(className);
+    }
 }
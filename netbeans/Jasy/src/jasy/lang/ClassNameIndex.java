@@ -0,0 +1,279 @@
+package jasy.lang;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read only index of the class names in a set of packages, stored in a file
+ * which is memory mapped. The file consists of a table of packages sorted by
+ * name, a table of class names sorted per package, and the UTF-8 bytes of all
+ * names; thus, looking up a package is a binary search directly in the mapped
+ * file, and only the class names of packages which are looked up are decoded.
+ * The file also holds a stamp, which describes what the index was built from,
+ * such that a stale index can be detected.
+ */
+public class ClassNameIndex implements ClassMap {
+    private static final int MAGIC = 0x4A535949; // "JSYI"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 20;
+    private static final int PACKAGE_RECORD_SIZE = 16;
+    private static final int CLASS_RECORD_SIZE = 8;
+
+    private final ByteBuffer buffer;
+    private final String stamp;
+    private final int packageCount;
+    private final int packagesStart;
+    private final int classesStart;
+    private final int namesStart;
+    private final ConcurrentHashMap<String, Set<String>> packageToClassNamesMap = new ConcurrentHashMap<>();
+
+    private ClassNameIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        packageCount = buffer.getInt(8);
+        int classCount = buffer.getInt(12);
+        byte[] stampBytes = new byte[buffer.getInt(16)];
+        ByteBuffer view = buffer.duplicate();
+        view.position(HEADER_SIZE);
+        view.get(stampBytes);
+        stamp = new String(stampBytes, StandardCharsets.UTF_8);
+        packagesStart = HEADER_SIZE + stampBytes.length;
+        classesStart = packagesStart + packageCount * PACKAGE_RECORD_SIZE;
+        namesStart = classesStart + classCount * CLASS_RECORD_SIZE;
+    }
+
+    public static ClassNameIndex open(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION)
+                throw new IOException("Invalid class name index " + file + ".");
+
+            return new ClassNameIndex(buffer);
+        }
+    }
+
+    /**
+     * @return An index of the given packages, which is held in memory.
+     */
+    public static ClassNameIndex fromMap(String stamp, Map<String, ? extends Collection<String>> packageToClassNamesMap) {
+        return new ClassNameIndex(toBuffer(stamp, packageToClassNamesMap));
+    }
+
+    /**
+     * Writes an index of the given packages to a temporary file, which then
+     * atomically replaces file.
+     */
+    public static void write(Path file, String stamp, Map<String, ? extends Collection<String>> packageToClassNamesMap) throws IOException {
+        ByteBuffer output = toBuffer(stamp, packageToClassNamesMap);
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmpFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try(FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+                while(output.hasRemaining())
+                    channel.write(output);
+                channel.force(true);
+            }
+            Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    private static ByteBuffer toBuffer(String stamp, Map<String, ? extends Collection<String>> packageToClassNamesMap) {
+        byte[] stampBytes = stamp.getBytes(StandardCharsets.UTF_8);
+
+        ArrayList<byte[]> packageNames = new ArrayList<>();
+        for(String packageName: packageToClassNamesMap.keySet())
+            packageNames.add(packageName.getBytes(StandardCharsets.UTF_8));
+        packageNames.sort(ClassNameIndex::compare);
+
+        ArrayList<byte[][]> classNamesPerPackage = new ArrayList<>();
+        int classCount = 0;
+        int namesSize = 0;
+        for(byte[] packageName: packageNames) {
+            byte[][] classNames = packageToClassNamesMap.get(new String(packageName, StandardCharsets.UTF_8)).stream()
+                .distinct()
+                .map(n -> n.getBytes(StandardCharsets.UTF_8))
+                .sorted(ClassNameIndex::compare)
+                .toArray(size -> new byte[size][]);
+            classNamesPerPackage.add(classNames);
+            classCount += classNames.length;
+            namesSize += packageName.length;
+            for(byte[] className: classNames)
+                namesSize += className.length;
+        }
+
+        ByteBuffer output = ByteBuffer.allocate(HEADER_SIZE + stampBytes.length + packageNames.size() * PACKAGE_RECORD_SIZE + classCount * CLASS_RECORD_SIZE + namesSize);
+        output.putInt(MAGIC);
+        output.putInt(FORMAT_VERSION);
+        output.putInt(packageNames.size());
+        output.putInt(classCount);
+        output.putInt(stampBytes.length);
+        output.put(stampBytes);
+
+        int nameOffset = 0;
+        int classIndex = 0;
+        for(int i = 0; i < packageNames.size(); i++) {
+            byte[] packageName = packageNames.get(i);
+            int packageClassCount = classNamesPerPackage.get(i).length;
+            output.putInt(nameOffset);
+            output.putInt(packageName.length);
+            output.putInt(classIndex);
+            output.putInt(packageClassCount);
+            nameOffset += packageName.length;
+            classIndex += packageClassCount;
+        }
+        for(byte[][] classNames: classNamesPerPackage) {
+            for(byte[] className: classNames) {
+                output.putInt(nameOffset);
+                output.putInt(className.length);
+                nameOffset += className.length;
+            }
+        }
+        for(byte[] packageName: packageNames)
+            output.put(packageName);
+        for(byte[][] classNames: classNamesPerPackage) {
+            for(byte[] className: classNames)
+                output.put(className);
+        }
+        output.flip();
+
+        return output;
+    }
+
+    public String getStamp() {
+        return stamp;
+    }
+
+    /**
+     * @return The simple names of the classes in the package; an empty set if
+     * the package only contains other packages; or null if the index contains
+     * no such package.
+     */
+    @Override
+    public Set<String> getClassNames(String packageName) {
+        Set<String> classNames = packageToClassNamesMap.get(packageName);
+
+        if(classNames == null) {
+            classNames = readClassNames(packageName);
+            if(classNames == null)
+                return null;
+            Set<String> existingClassNames = packageToClassNamesMap.putIfAbsent(packageName, classNames);
+            if(existingClassNames != null)
+                classNames = existingClassNames;
+        }
+
+        return classNames;
+    }
+
+    private Set<String> readClassNames(String packageName) {
+        byte[] name = packageName.getBytes(StandardCharsets.UTF_8);
+        int index = findPackage(name);
+
+        if(index < 0) {
+            // Packages, which only contain other packages, are not in the table
+            if(name.length == 0)
+                return Collections.emptySet();
+            byte[] prefix = (packageName + ".").getBytes(StandardCharsets.UTF_8);
+            int following = findPackage(prefix);
+            following = following < 0 ? -(following + 1) : following;
+            return following < packageCount && startsWith(packagesStart + following * PACKAGE_RECORD_SIZE, prefix)
+                ? Collections.emptySet() : null;
+        }
+
+        int packageRecord = packagesStart + index * PACKAGE_RECORD_SIZE;
+        int firstClass = buffer.getInt(packageRecord + 8);
+        int classCount = buffer.getInt(packageRecord + 12);
+        HashSet<String> classNames = new HashSet<>();
+        for(int i = 0; i < classCount; i++) {
+            int classRecord = classesStart + (firstClass + i) * CLASS_RECORD_SIZE;
+            classNames.add(readName(classRecord));
+        }
+
+        return Collections.unmodifiableSet(classNames);
+    }
+
+    /**
+     * @return The index of the package; or -(insertion point + 1) if there is
+     * no such package.
+     */
+    private int findPackage(byte[] name) {
+        int low = 0;
+        int high = packageCount - 1;
+
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(packagesStart + middle * PACKAGE_RECORD_SIZE, name);
+
+            if(comparison < 0)
+                low = middle + 1;
+            else if(comparison > 0)
+                high = middle - 1;
+            else
+                return middle;
+        }
+
+        return -(low + 1);
+    }
+
+    private String readName(int record) {
+        byte[] name = new byte[buffer.getInt(record + 4)];
+        ByteBuffer view = buffer.duplicate();
+        view.position(namesStart + buffer.getInt(record));
+        view.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    private int compare(int record, byte[] name) {
+        int offset = namesStart + buffer.getInt(record);
+        int length = buffer.getInt(record + 4);
+
+        for(int i = 0; i < length && i < name.length; i++) {
+            int comparison = Integer.compare(buffer.get(offset + i) & 0xFF, name[i] & 0xFF);
+            if(comparison != 0)
+                return comparison;
+        }
+
+        return Integer.compare(length, name.length);
+    }
+
+    private boolean startsWith(int record, byte[] prefix) {
+        int offset = namesStart + buffer.getInt(record);
+        int length = buffer.getInt(record + 4);
+
+        if(length < prefix.length)
+            return false;
+
+        for(int i = 0; i < prefix.length; i++) {
+            if(buffer.get(offset + i) != prefix[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static int compare(byte[] x, byte[] y) {
+        for(int i = 0; i < x.length && i < y.length; i++) {
+            int comparison = Integer.compare(x[i] & 0xFF, y[i] & 0xFF);
+            if(comparison != 0)
+                return comparison;
+        }
+
+        return Integer.compare(x.length, y.length);
+    }
+}
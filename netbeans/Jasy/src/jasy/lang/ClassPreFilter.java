@@ -0,0 +1,299 @@
+package jasy.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cheap, conservative test of whether any class transformer of a module can
+ * possibly match a class. The test is performed directly on the constant pool
+ * of the class file, i.e. without building a tree and without allocating.
+ * A false result means that no class transformer can match; a true result
+ * means that the class must be examined further.
+ */
+public class ClassPreFilter {
+    private static class Requirement {
+        private final int accessModifier;
+        private final byte[][] annotationDescriptors;
+
+        private Requirement(int accessModifier, byte[][] annotationDescriptors) {
+            this.accessModifier = accessModifier;
+            this.annotationDescriptors = annotationDescriptors;
+        }
+    }
+
+    private static class NamedRequirements {
+        private final byte[] name;
+        private final int hash;
+        private final ArrayList<Requirement> requirements = new ArrayList<>();
+
+        private NamedRequirements(byte[] name, int hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+    }
+
+    private ArrayList<Requirement> unnamedRequirements = new ArrayList<>();
+    private NamedRequirements[] namedRequirements = new NamedRequirements[16];
+    private int namedRequirementsCount;
+    private boolean matchesAll;
+
+    /**
+     * @param internalName The exact name, separated by '/', a class must have;
+     * or null if any name is allowed.
+     * @param accessModifier Access flags of which at least one must be set for
+     * a class; or null if any access is allowed.
+     * @param annotationDescriptors Descriptors of annotations which must all
+     * occur in a class.
+     */
+    public void addRequirement(String internalName, Integer accessModifier, List<String> annotationDescriptors) {
+        byte[][] annotationDescriptorBytes = annotationDescriptors.stream()
+            .map(d -> toModifiedUTF8(d))
+            .toArray(size -> new byte[size][]);
+        Requirement requirement = new Requirement(accessModifier != null ? accessModifier : 0, annotationDescriptorBytes);
+
+        if(internalName == null) {
+            if(requirement.accessModifier == 0 && annotationDescriptorBytes.length == 0)
+                matchesAll = true;
+            unnamedRequirements.add(requirement);
+        } else {
+            byte[] name = toModifiedUTF8(internalName);
+            getOrCreateNamedRequirements(name).requirements.add(requirement);
+        }
+    }
+
+    public boolean matchesAll() {
+        return matchesAll;
+    }
+
+    /**
+     * Tests whether a class of the given name may match, before its class file
+     * is read.
+     * @param internalName The name of the class, separated by '/'.
+     */
+    public boolean mayMatchName(String internalName) {
+        if(!unnamedRequirements.isEmpty())
+            return true;
+
+        byte[] name = toModifiedUTF8(internalName);
+        return getNamedRequirements(name, 0, name.length) != null;
+    }
+
+    public boolean mayMatch(byte[] classBytes) {
+        if(matchesAll)
+            return true;
+
+        int constantPoolCount = readUnsignedShort(classBytes, 8);
+        int constantPoolEnd = getConstantPoolEntryOffset(classBytes, constantPoolCount);
+        int access = readUnsignedShort(classBytes, constantPoolEnd);
+
+        for(int i = 0; i < unnamedRequirements.size(); i++) {
+            if(isSatisfied(unnamedRequirements.get(i), classBytes, access))
+                return true;
+        }
+
+        if(namedRequirementsCount == 0)
+            return false;
+
+        // this_class refers to a CONSTANT_Class entry which refers to a CONSTANT_Utf8 entry
+        int thisClassIndex = readUnsignedShort(classBytes, constantPoolEnd + 2);
+        int thisClassOffset = getConstantPoolEntryOffset(classBytes, thisClassIndex);
+        int nameIndex = readUnsignedShort(classBytes, thisClassOffset + 1);
+        int nameOffset = getConstantPoolEntryOffset(classBytes, nameIndex);
+        int nameLength = readUnsignedShort(classBytes, nameOffset + 1);
+
+        NamedRequirements named = getNamedRequirements(classBytes, nameOffset + 3, nameLength);
+
+        if(named != null) {
+            for(int i = 0; i < named.requirements.size(); i++) {
+                if(isSatisfied(named.requirements.get(i), classBytes, access))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isSatisfied(Requirement requirement, byte[] classBytes, int access) {
+        if(requirement.accessModifier != 0 && (access & requirement.accessModifier) == 0)
+            return false;
+
+        for(byte[] annotationDescriptor: requirement.annotationDescriptors) {
+            if(!containsUTF8(classBytes, annotationDescriptor))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Tests whether the constant pool of the class contains the given string
+     * as a CONSTANT_Utf8 entry.
+     * @param value The string encoded as modified UTF-8.
+     */
+    public static boolean containsUTF8(byte[] classBytes, byte[] value) {
+        int constantPoolCount = readUnsignedShort(classBytes, 8);
+        int offset = 10;
+
+        for(int i = 1; i < constantPoolCount; i++) {
+            int tag = classBytes[offset];
+
+            if(tag == 1) {
+                int length = readUnsignedShort(classBytes, offset + 1);
+                if(equals(classBytes, offset + 3, length, value))
+                    return true;
+            } else if(tag == 5 || tag == 6) {
+                // Long and double entries take up two slots
+                i++;
+            }
+
+            offset += getConstantPoolEntrySize(classBytes, offset);
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The offset of the constant pool entry with the given index; or,
+     * for index equal to the constant pool count, the offset just after the
+     * constant pool.
+     */
+    public static int getConstantPoolEntryOffset(byte[] classBytes, int index) {
+        int offset = 10;
+
+        for(int i = 1; i < index; i++) {
+            int tag = classBytes[offset];
+
+            if(tag == 5 || tag == 6)
+                i++;
+
+            offset += getConstantPoolEntrySize(classBytes, offset);
+        }
+
+        return offset;
+    }
+
+    private static int getConstantPoolEntrySize(byte[] classBytes, int offset) {
+        switch(classBytes[offset]) {
+            case 1: // Utf8
+                return 3 + readUnsignedShort(classBytes, offset + 1);
+            case 7: // Class
+            case 8: // String
+            case 16: // MethodType
+            case 19: // Module
+            case 20: // Package
+                return 3;
+            case 15: // MethodHandle
+                return 4;
+            case 3: // Integer
+            case 4: // Float
+            case 9: // Fieldref
+            case 10: // Methodref
+            case 11: // InterfaceMethodref
+            case 12: // NameAndType
+            case 17: // Dynamic
+            case 18: // InvokeDynamic
+                return 5;
+            case 5: // Long
+            case 6: // Double
+                return 9;
+            default:
+                throw new IllegalArgumentException("Unknown constant pool tag " + classBytes[offset] + " at " + offset + ".");
+        }
+    }
+
+    public static int readUnsignedShort(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private static boolean equals(byte[] bytes, int offset, int length, byte[] value) {
+        if(length != value.length)
+            return false;
+
+        for(int i = 0; i < length; i++) {
+            if(bytes[offset + i] != value[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 0;
+        for(int i = 0; i < length; i++)
+            hash = 31 * hash + bytes[offset + i];
+        return hash;
+    }
+
+    private NamedRequirements getNamedRequirements(byte[] bytes, int offset, int length) {
+        int hash = hash(bytes, offset, length);
+        int mask = namedRequirements.length - 1;
+
+        for(int i = hash & mask; namedRequirements[i] != null; i = (i + 1) & mask) {
+            NamedRequirements named = namedRequirements[i];
+            if(named.hash == hash && equals(bytes, offset, length, named.name))
+                return named;
+        }
+
+        return null;
+    }
+
+    private NamedRequirements getOrCreateNamedRequirements(byte[] name) {
+        NamedRequirements named = getNamedRequirements(name, 0, name.length);
+
+        if(named == null) {
+            if((namedRequirementsCount + 1) * 2 > namedRequirements.length) {
+                NamedRequirements[] oldNamedRequirements = namedRequirements;
+                namedRequirements = new NamedRequirements[oldNamedRequirements.length * 2];
+                for(NamedRequirements n: oldNamedRequirements) {
+                    if(n != null)
+                        insert(n);
+                }
+            }
+
+            named = new NamedRequirements(name, hash(name, 0, name.length));
+            insert(named);
+            namedRequirementsCount++;
+        }
+
+        return named;
+    }
+
+    private void insert(NamedRequirements named) {
+        int mask = namedRequirements.length - 1;
+        int i = named.hash & mask;
+        while(namedRequirements[i] != null)
+            i = (i + 1) & mask;
+        namedRequirements[i] = named;
+    }
+
+    public static byte[] toModifiedUTF8(String str) {
+        int length = 0;
+        for(int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if(c >= 0x0001 && c <= 0x007F)
+                length++;
+            else if(c > 0x07FF)
+                length += 3;
+            else
+                length += 2;
+        }
+
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        for(int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if(c >= 0x0001 && c <= 0x007F) {
+                bytes[offset++] = (byte)c;
+            } else if(c > 0x07FF) {
+                bytes[offset++] = (byte)(0xE0 | ((c >> 12) & 0x0F));
+                bytes[offset++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                bytes[offset++] = (byte)(0x80 | (c & 0x3F));
+            } else {
+                bytes[offset++] = (byte)(0xC0 | ((c >> 6) & 0x1F));
+                bytes[offset++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+
+        return bytes;
+    }
+}
@@ -0,0 +1,77 @@
+package jasy.lang;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the classes, which names are resolved to, per class loader. Classes
+ * are loaded without being initialized, since resolution only needs their
+ * structure; names which could not be resolved are cached, too. Class loaders
+ * and classes are only weakly referenced, such that they can be unloaded.
+ */
+public class ClassResolutionCache {
+    private static final Resolution NOT_FOUND = new Resolution(null);
+    
+    private static final Map<ClassLoader, ConcurrentHashMap<String, Resolution>> loaderToResolutionsMap = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ConcurrentHashMap<String, Resolution> bootstrapResolutions = new ConcurrentHashMap<>();
+    
+    /**
+     * The class is weakly referenced, since it, through its loader, would 
+     * otherwise keep the key of its resolutions alive.
+     */
+    private static class Resolution extends WeakReference<Class<?>> {
+        public Resolution(Class<?> c) {
+            super(c);
+        }
+    }
+
+    /**
+     * Same as Class.forName(name, false, classLoader), except that the result
+     * is cached.
+     */
+    public static Class<?> forName(String name, ClassLoader classLoader) throws ClassNotFoundException {
+        ConcurrentHashMap<String, Resolution> resolutions = getResolutions(classLoader);
+        Resolution resolution = resolutions.get(name);
+        
+        if(resolution == NOT_FOUND)
+            throw new ClassNotFoundException(name);
+        
+        Class<?> c = resolution != null ? resolution.get() : null;
+        
+        if(c == null) {
+            try {
+                c = Class.forName(name, false, classLoader);
+            } catch (ClassNotFoundException ex) {
+                resolutions.put(name, NOT_FOUND);
+                throw ex;
+            }
+            
+            resolutions.put(name, new Resolution(c));
+        }
+        
+        return c;
+    }
+    
+    private static ConcurrentHashMap<String, Resolution> getResolutions(ClassLoader classLoader) {
+        if(classLoader == null)
+            return bootstrapResolutions;
+        
+        synchronized(loaderToResolutionsMap) {
+            return loaderToResolutionsMap.computeIfAbsent(classLoader, cl -> new ConcurrentHashMap<>());
+        }
+    }
+    
+    /**
+     * Discards the resolutions cached for classLoader, e.g. because classes,
+     * which could not be found earlier, have become available.
+     */
+    public static void invalidate(ClassLoader classLoader) {
+        if(classLoader == null)
+            bootstrapResolutions.clear();
+        else
+            loaderToResolutionsMap.remove(classLoader);
+    }
+}
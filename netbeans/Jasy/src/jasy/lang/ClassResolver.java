@@ -10,6 +10,10 @@ package jasy.lang;
  * @author Jakob
  */
 public interface ClassResolver {
+    /**
+     * @throws ClassNotFoundException If typeName cannot be resolved, including
+     * if it is ambiguous.
+     */
     default Class<?> resolveType(ClassLoader classLoader, String typeName) throws ClassNotFoundException {
         switch(typeName) {
             case "boolean": return boolean.class;
@@ -21,16 +25,27 @@ public interface ClassResolver {
             case "double": return double.class;
         }
         
-        String className = resolveClassName(typeName);
+        String className;
+        try {
+            className = resolveClassName(typeName);
+        } catch(AmbiguousClassNameException e) {
+            throw new ClassNotFoundException(e.getMessage(), e);
+        }
         
         try {
 //            return Class.forName(className);
 //            return classLoader.loadClass(className);
-            return Class.forName(className, true, classLoader);
+            return ClassResolutionCache.forName(className, classLoader);
         } catch(ClassNotFoundException e) {
             throw e;
         }
     }
 
+    /**
+     * @return The qualified name of className; or className itself if it 
+     * cannot be resolved.
+     * @throws AmbiguousClassNameException If className could refer to more 
+     * than one class.
+     */
     String resolveClassName(String className);
 }
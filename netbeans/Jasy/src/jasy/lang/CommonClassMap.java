@@ -10,38 +10,180 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.jar.JarInputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 public class CommonClassMap implements ClassMap {
     
+    /**
+     * The system property which overrides the default cache directory.
+     */
+    public static final String CACHE_DIRECTORY_PROPERTY = "jasy.cache.dir";
+    /**
+     * The system property which overrides the default parallelism of 
+     * createDefault.
+     */
+    public static final String PARALLELISM_PROPERTY = "jasy.classpath.parallelism";
+    
     private PackageInfo rootPackage = new PackageInfo();
+    private ArrayList<ClassMap> classMaps = new ArrayList<>();
+    private Path cacheDirectory;
+    private boolean verifyContentHash;
+    
+    public CommonClassMap() {
+        this(getDefaultCacheDirectory());
+    }
+    
+    /**
+     * @param cacheDirectory The directory in which the indexes of jars are 
+     * cached.
+     */
+    public CommonClassMap(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+    
+    /**
+     * @return The directory given by the system property jasy.cache.dir; or, 
+     * if not set, .jasy/cache in the home directory of the user.
+     */
+    public static Path getDefaultCacheDirectory() {
+        String cacheDirectory = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+        return cacheDirectory != null 
+            ? Paths.get(cacheDirectory) 
+            : Paths.get(System.getProperty("user.home"), ".jasy", "cache");
+    }
+    
+    /**
+     * @param verifyContentHash Whether a cached index of a jar is only used if
+     * the content hash of the jar is unchanged, too; otherwise, only the size 
+     * and the last modified time of the jar are compared.
+     */
+    public void setVerifyContentHash(boolean verifyContentHash) {
+        this.verifyContentHash = verifyContentHash;
+    }
     
     public void addFromPath(String path) {
-        if(path.endsWith(".jar"))
-            addFromJar(path);
-        else
-            addFromDirectory(path);
+        addIndex(indexPath(path));
+    }
+    
+    /**
+     * Indexes the given jars and directories in parallel. The indexes are added
+     * in the order of paths, once all of them have been built; paths which 
+     * fail to be indexed are reported and skipped.
+     * @param parallelism The number of paths which are indexed at the same 
+     * time.
+     */
+    public void addFromPaths(List<String> paths, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Callable<ClassNameIndex>> tasks = paths.stream()
+                .map(path -> (Callable<ClassNameIndex>)() -> indexPath(path))
+                .collect(Collectors.toList());
+            List<Future<ClassNameIndex>> indexes = pool.invokeAll(tasks);
+            for(int i = 0; i < indexes.size(); i++) {
+                try {
+                    addIndex(indexes.get(i).get());
+                } catch (ExecutionException ex) {
+                    Logger.getLogger(CommonClassMap.class.getName()).log(Level.SEVERE, "Could not index " + paths.get(i), ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Logger.getLogger(CommonClassMap.class.getName()).log(Level.SEVERE, null, ex);
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private ClassNameIndex indexPath(String path) {
+        long start = System.currentTimeMillis();
+        ClassNameIndex index = path.endsWith(".jar") ? indexJar(path) : indexDirectory(path);
+        long end = System.currentTimeMillis();
+        System.out.println("Indexed " + path + " in " + (end - start) + "ms");
+        return index;
+    }
+    
+    private void addIndex(ClassNameIndex index) {
+        if(index != null)
+            classMaps.add(index);
     }
     
     @Override
     public Set<String> getClassNames(String packageName) {
 //        PackageInfo p = getPackage(packageName, false);
 //        return p.classNames;
-        return rootPackage.getPackage(packageName).getClassNames();
+        PackageInfo p = rootPackage.findPackage(packageName);
+        Set<String> classNames = p != null ? p.getClassNames() : null;
+        
+        for(ClassMap classMap: classMaps) {
+            Set<String> indexedClassNames = classMap.getClassNames(packageName);
+            
+            if(indexedClassNames != null) {
+                if(classNames == null) {
+                    classNames = indexedClassNames;
+                } else {
+                    classNames = new HashSet<>(classNames);
+                    classNames.addAll(indexedClassNames);
+                }
+            }
+        }
+        
+        if(classNames == null)
+            throw new RuntimeException("Could not resolve package '" + packageName + "'.");
+        
+        return classNames;
+    }
+    
+    @Override
+    public boolean containsPackage(String packageName) {
+        if(rootPackage.findPackage(packageName) != null)
+            return true;
+        
+        for(ClassMap classMap: classMaps) {
+            if(classMap.containsPackage(packageName))
+                return true;
+        }
+        
+        return false;
+    }
+    
+    @Override
+    public boolean containsClass(String packageName, String className) {
+        PackageInfo p = rootPackage.findPackage(packageName);
+        
+        if(p != null && p.getClassNames().contains(className))
+            return true;
+        
+        for(ClassMap classMap: classMaps) {
+            if(classMap.containsClass(packageName, className))
+                return true;
+        }
+        
+        return false;
     }
     
 //    private PackageInfo getPackage(String packageName, boolean allocate) {
@@ -64,135 +206,146 @@ public class CommonClassMap implements ClassMap {
 //    }
     
     public void addFromJar(String path) {
-        String cacheDir = "cache";
-        if(!Files.exists(Paths.get(cacheDir))) {
-            try {
-                Files.createDirectory(Paths.get(cacheDir));
-            } catch (IOException ex) {
-                Logger.getLogger(CommonClassMap.class.getName()).log(Level.SEVERE, null, ex);
-            }
+        addIndex(indexJar(path));
+    }
+    
+    /**
+     * Adds the classes of the running JDK, i.e. of the module image through 
+     * jrt:/ if available, since there is no rt.jar from JDK 9 and onwards.
+     * @return Whether the module image was added; otherwise, the runtime jar
+     * should be added.
+     */
+    public boolean addFromModuleImage() {
+        if(!JrtClassMap.isAvailable())
+            return false;
+        
+        try {
+            long start = System.currentTimeMillis();
+            classMaps.add(JrtClassMap.open(cacheDirectory));
+            long end = System.currentTimeMillis();
+            System.out.println("Opened module image in " + (end - start) + "ms");
+            return true;
+        } catch (IOException ex) {
+            Logger.getLogger(CommonClassMap.class.getName()).log(Level.SEVERE, null, ex);
+            return false;
         }
-        String cachePath = cacheDir + "/" + Paths.get(path).getFileName().getName(0);
+    }
+    
+    private ClassNameIndex indexJar(String path) {
+        Path jarPath = Paths.get(path).toAbsolutePath().normalize();
+        // Jars of the same name in different directories are cached separately
+        Path cacheFile = cacheDirectory.resolve(jarPath.getFileName() + "-" + Integer.toHexString(jarPath.toString().hashCode()) + ".idx");
+        String stamp;
         
-//        String cachePath = path.substring(path.lastIndexOf("\\") + 1) + "cache";
-//        URL cachePathUrl = ClassLoader.getSystemClassLoader().getResource("");
-//        
-//        System.out.println("cachePathUrl=" + cachePathUrl);
-//        System.out.println(cachePathUrl.getPath());
-//        System.out.println(cachePathUrl.getFile());
-//        String cachePath = cachePathUrl.getFile().substring(0);
-        System.out.println("cachePath=" + cachePath);
-        File cacheFile = new File(cachePath);
         try {
-            System.out.println(new File(".").getCanonicalPath());
+            stamp = getStamp(jarPath);
         } catch (IOException ex) {
             Logger.getLogger(CommonClassMap.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
         }
         
-        if(cacheFile.exists()) {
-//            try{
-//            try(DataInputStream cacheInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
-//                System.out.println("Reading jar cache " + cachePath);
-//                while(cacheInputStream.available() != 0) {
-//                    String className = cacheInputStream.readUTF();
-//                    addFromClassPath(className);
-//                }
-//            } catch (IOException ex) {
-//                Logger.getLogger(ClassMap.class.getName()).log(Level.SEVERE, null, ex);
-//            }
-                
+        if(Files.exists(cacheFile)) {
+            try {
                 long start = System.currentTimeMillis();
-//                byte[] cacheContents = java.nio.file.Files.readAllBytes(Paths.get(cacheFile.getCanonicalPath()));
+                ClassNameIndex index = ClassNameIndex.open(cacheFile);
                 long end = System.currentTimeMillis();
-//                System.out.println("Read byte[] from " + cacheFile.getCanonicalPath() + " in " + (end - start) + "ms");
-                try(ObjectInputStream cacheInputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
-//                try(ObjectInputStream cacheInputStream = new ObjectInputStream(new ByteArrayInputStream(cacheContents))) {
-                    System.out.println("Reading jar cache " + cachePath);
-                    start = System.currentTimeMillis();
-                    PackageInfo cachedPackage = (PackageInfo)cacheInputStream.readObject();
-                    end = System.currentTimeMillis();
-                    System.out.println("PackageInfo from byte[] in " + (end - start) + "ms");
-                    start = System.currentTimeMillis();
-                    rootPackage.merge(cachedPackage);
-                    end = System.currentTimeMillis();
-                    System.out.println("Loaded cached package in " + (end - start) + "ms");
-//                    System.out.println("Reading jar cache " + cachePath);
-//                    start = System.currentTimeMillis();
-//                    ArrayList<String> cachedClassNames = (ArrayList<String>)cacheInputStream.readObject();
-//                    end = System.currentTimeMillis();
-//                    System.out.println("Read ArrayList<String> (" + cachedClassNames.size() + ") from byte[] in " + (end - start) + "ms");
-//                    start = System.currentTimeMillis();
-//                    for(String cachedClassName: cachedClassNames)
-//                        addFromClassPath(cachedClassName);
-//                    end = System.currentTimeMillis();
-//                    System.out.println("Loaded cached names from ArrayList<String> in " + (end - start) + "ms");
-//                while(cacheInputStream.available() != 0) {
-//                    String className = cacheInputStream.readUTF();
-//                    addFromClassPath(className);
-//                }
-                } catch (IOException | ClassNotFoundException ex) {
-                    Logger.getLogger(CommonClassMap.class.getName()).log(Level.SEVERE, null, ex);
-                }
-//            } catch (IOException ex) {
-//                Logger.getLogger(ClassMap.class.getName()).log(Level.SEVERE, null, ex);
-//            }
-//            } catch (IOException ex) {
-//                Logger.getLogger(ClassMap.class.getName()).log(Level.SEVERE, null, ex);
-//            }
-        } else {
-//            try(DataOutputStream cacheOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
-//                try(JarInputStream jarInputStream = new JarInputStream(new BufferedInputStream(new FileInputStream(path)))) {
-//                    ZipEntry entry;
-//                    while((entry = jarInputStream.getNextEntry()) != null) {
-//                        String className = entry.getName();
-//                        if(className.endsWith(".class")) {
-//                            addFromClassPath(className);
-//                            cacheOutputStream.writeUTF(className);
-//                        }
-//                    }
-//                } catch (IOException ex) {
-//                    Logger.getLogger(ClassMap.class.getName()).log(Level.SEVERE, null, ex);
-//                }
-//            } catch (IOException ex) {
-//                Logger.getLogger(ClassMap.class.getName()).log(Level.SEVERE, null, ex);
-//            }
-            System.out.println("Reading jar " + path + " - caching into " + cacheFile);
-            try(ObjectOutputStream cacheOutputStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
-//                ArrayList<String> cachedClassNames = new ArrayList<>();
-                PackageInfo p = PackageInfo.fromJar(path);
-                cacheOutputStream.writeObject(p);
-                rootPackage.merge(p);
                 
-//                try(JarInputStream jarInputStream = new JarInputStream(new BufferedInputStream(new FileInputStream(path)))) {
-//                    ZipEntry entry;
-//                    while((entry = jarInputStream.getNextEntry()) != null) {
-//                        String className = entry.getName();
-//                        if(className.endsWith(".class")) {
-//                            addFromClassPath(className);
-////                            cacheOutputStream.writeUTF(className);
-////                            cachedClassNames.add(className);
-//                        }
-//                    }
-//                } catch (IOException ex) {
-//                    Logger.getLogger(ClassMap.class.getName()).log(Level.SEVERE, null, ex);
-//                }
+                if(index.getStamp().equals(stamp)) {
+                    System.out.println("Opened jar cache " + cacheFile + " in " + (end - start) + "ms");
+                    return index;
+                }
                 
-//                cacheOutputStream.writeObject(cachedClassNames);
+                System.out.println("Jar cache " + cacheFile + " is stale");
             } catch (IOException ex) {
-                Logger.getLogger(CommonClassMap.class.getName()).log(Level.SEVERE, null, ex);
+                // Rebuild the cache below
+                Logger.getLogger(CommonClassMap.class.getName()).log(Level.WARNING, null, ex);
+            }
+        }
+        
+        System.out.println("Reading jar " + path + " - caching into " + cacheFile);
+        HashMap<String, Set<String>> packageToClassNamesMap = new HashMap<>();
+        // Only the central directory is read; the entries are never inflated
+        try (ZipFile zipFile = new ZipFile(path)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String classPath = entries.nextElement().getName();
+                if (classPath.endsWith(".class"))
+                    addClassPath(packageToClassNamesMap, classPath);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(CommonClassMap.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+        
+        try {
+            ClassNameIndex.write(cacheFile, stamp, packageToClassNamesMap);
+            return ClassNameIndex.open(cacheFile);
+        } catch (IOException ex) {
+            Logger.getLogger(CommonClassMap.class.getName()).log(Level.SEVERE, null, ex);
+            // Use the names read from the jar without caching them
+            return ClassNameIndex.fromMap(stamp, packageToClassNamesMap);
+        }
+    }
+    
+    private static void addClassPath(Map<String, Set<String>> packageToClassNamesMap, String classPath) {
+        int packageEnd = classPath.lastIndexOf("/");
+        String packageName = packageEnd != -1 ? classPath.substring(0, packageEnd).replace("/", ".") : "";
+        String className = classPath.substring(packageEnd + 1, classPath.length() - 6);
+        packageToClassNamesMap.computeIfAbsent(packageName, n -> new HashSet<>()).add(className);
+    }
+    
+    /**
+     * @return A description of the path, size, last modified time and, if 
+     * enabled, content hash of the jar.
+     */
+    private String getStamp(Path jarPath) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(jarPath, BasicFileAttributes.class);
+        StringBuilder stamp = new StringBuilder();
+        
+        stamp.append(jarPath).append("\n");
+        stamp.append(attributes.size()).append("\n");
+        stamp.append(attributes.lastModifiedTime().toMillis()).append("\n");
+        
+        if(verifyContentHash) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                try(InputStream jarInputStream = new DigestInputStream(new BufferedInputStream(Files.newInputStream(jarPath)), digest)) {
+                    byte[] buffer = new byte[8192];
+                    while(jarInputStream.read(buffer) != -1);
+                }
+                for(byte b: digest.digest())
+                    stamp.append(String.format("%02x", b));
+                stamp.append("\n");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new RuntimeException(ex);
             }
-        }   
+        }
+        
+        return stamp.toString();
     }
     
     public void addFromDirectory(String path) {
-        File filePath = new File(path);
-
-        if(filePath.isDirectory()) {
-            for(String f: filePath.list()) {
-                if(f.endsWith(".class"))
-                    addFromClassPath(f);
-            }
+        addIndex(indexDirectory(path));
+    }
+    
+    private ClassNameIndex indexDirectory(String path) {
+        Path directoryPath = Paths.get(path);
+        
+        if(!Files.isDirectory(directoryPath))
+            return null;
+        
+        // Directories are not cached, since they are expected to change often
+        HashMap<String, Set<String>> packageToClassNamesMap = new HashMap<>();
+        try(Stream<Path> files = Files.walk(directoryPath)) {
+            files
+                .filter(f -> f.toString().endsWith(".class"))
+                .forEach(f -> addClassPath(packageToClassNamesMap, directoryPath.relativize(f).toString().replace(File.separator, "/")));
+        } catch (IOException ex) {
+            Logger.getLogger(CommonClassMap.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
         }
+        
+        return ClassNameIndex.fromMap(path, packageToClassNamesMap);
     }
 
     public void addFromClassPath(String classPath) {
@@ -222,18 +375,31 @@ public class CommonClassMap implements ClassMap {
         rootPackage.addClassName(packageName, className);
     }
     
+    /**
+     * @return A class map of the JDK and the class path, which are
+     * indexed with the parallelism given by the system property 
+     * jasy.classpath.parallelism; or, if not set, with a parallelism equal to
+     * the number of available processors.
+     */
     public static CommonClassMap createDefault() {
+        return createDefault(Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+    
+    public static CommonClassMap createDefault(int parallelism) {
         CommonClassMap classMap = new CommonClassMap();
         
-        long javaRTJarStart = System.currentTimeMillis();
-        String javaRTJar = System.getProperty("java.home") + "/lib/rt.jar";
-        classMap.addFromJar(javaRTJar);
-        long javaRTJarEnd = System.currentTimeMillis();
-        System.out.println("javaRTJar " + (javaRTJarEnd - javaRTJarStart) + "ms");
+        ArrayList<String> paths = new ArrayList<>();
+        if(!classMap.addFromModuleImage())
+            paths.add(System.getProperty("java.home") + "/lib/rt.jar");
+        for(String cp: System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if(cp.length() > 0)
+                paths.add(cp);
+        }
         
-        String[] classPaths = System.getProperty("java.class.path").split(";");
-        for(String cp: classPaths)
-            classMap.addFromPath(cp);
+        long start = System.currentTimeMillis();
+        classMap.addFromPaths(paths, parallelism);
+        long end = System.currentTimeMillis();
+        System.out.println("Indexed " + paths.size() + " class path entries in " + (end - start) + "ms");
         
         return classMap;
     }
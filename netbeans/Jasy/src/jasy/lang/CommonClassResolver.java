@@ -1,28 +1,74 @@
 package jasy.lang;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Resolves simple class names against the imported packages. Importing a
+ * package only records it; a simple name is looked up in the imported
+ * packages the first time it is resolved, and the result, whether found or
+ * not, is cached until the next import.
+ */
 public class CommonClassResolver implements ClassResolver {
     private ClassMap classMap;
-    private Map<String, String> imports = new HashMap<>();
+    private CopyOnWriteArrayList<String> importedPackages = new CopyOnWriteArrayList<>();
+    // Maps simple names to qualified names; names, which could not be resolved, are mapped to themselves
+    private ConcurrentHashMap<String, String> resolvedNames = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<String, AmbiguousClassNameException> ambiguousNames = new ConcurrentHashMap<>();
 
     public CommonClassResolver(ClassMap classMap) {
         this.classMap = classMap;
     }
     
+    /**
+     * @throws RuntimeException If the package is unknown to the class map.
+     */
     public void importPackage(String packageName) {
-        for(String className: classMap.getClassNames(packageName))
-            imports.put(className, packageName + "." + className);
+        if(!classMap.containsPackage(packageName))
+            throw new RuntimeException("Could not resolve package '" + packageName + "'.");
+        
+        if(importedPackages.addIfAbsent(packageName)) {
+            resolvedNames.clear();
+            ambiguousNames.clear();
+        }
     }
     
+    /**
+     * @throws AmbiguousClassNameException If className occurs in more than one
+     * of the imported packages.
+     */
     @Override
     public String resolveClassName(String className) {
-        String importedName = imports.get(className);
+        String resolvedName = resolvedNames.get(className);
+        
+        if(resolvedName != null)
+            return resolvedName;
+        
+        AmbiguousClassNameException ambiguity = ambiguousNames.get(className);
+        
+        if(ambiguity != null)
+            throw ambiguity;
+        
+        ArrayList<String> candidates = new ArrayList<>();
+        
+        // Qualified names are left as they are
+        if(className.indexOf('.') == -1) {
+            for(String packageName: importedPackages) {
+                if(classMap.containsClass(packageName, className))
+                    candidates.add(packageName + "." + className);
+            }
+        }
+        
+        if(candidates.size() > 1) {
+            ambiguity = new AmbiguousClassNameException(className, candidates);
+            ambiguousNames.put(className, ambiguity);
+            throw ambiguity;
+        }
         
-        if(importedName != null)
-            return importedName;
+        resolvedName = candidates.size() == 1 ? candidates.get(0) : className;
+        resolvedNames.put(className, resolvedName);
         
-        return className;
+        return resolvedName;
     }
 }
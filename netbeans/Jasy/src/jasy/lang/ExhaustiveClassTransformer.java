@@ -3,54 +3,118 @@ package jasy.lang;
 import jasy.lang.ast.Transformation;
 import jasy.runtime.asm.ClassAction;
 import jasy.runtime.asm.ClassTransformer;
-import java.io.PrintWriter;
-import java.util.Hashtable;
+import java.util.BitSet;
 import java.util.function.Function;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.util.CheckClassAdapter;
-import org.objectweb.asm.util.TraceClassVisitor;
 
 public class ExhaustiveClassTransformer {
     private ClassTransformer transformer;
+    private boolean singlePass;
+    private TransformationDiagnostics diagnostics;
 
     public ExhaustiveClassTransformer(Function<Transformation<ClassNode>, Runnable> transformer) {
-        this((ClassTransformer)(c -> {
-            Transformation<ClassNode> transformation = new Transformation<>(c);
-            Runnable t = transformer.apply(transformation);
-            return t != null ? c1 -> t.run() : null;
-        }));
+        this(transformer, true);
+    }
+
+    public ExhaustiveClassTransformer(Function<Transformation<ClassNode>, Runnable> transformer, boolean singlePass) {
+        this(transformer, singlePass, TransformationDiagnostics.OFF);
+    }
+
+    public ExhaustiveClassTransformer(Function<Transformation<ClassNode>, Runnable> transformer, boolean singlePass, TransformationDiagnostics diagnostics) {
+        this(new ClassTransformer() {
+            @Override
+            public ClassAction resolve(ClassNode classNode) {
+                return resolve(classNode, new BitSet());
+            }
+
+            @Override
+            public ClassAction resolve(ClassNode classNode, BitSet appliedTransformers) {
+                Transformation<ClassNode> transformation = new Transformation<>(classNode, appliedTransformers);
+                Runnable t = transformer.apply(transformation);
+                return t != null ? c1 -> t.run() : null;
+            }
+        }, singlePass, diagnostics);
     }
 
     public ExhaustiveClassTransformer(ClassTransformer transformer) {
+        this(transformer, true);
+    }
+
+    public ExhaustiveClassTransformer(ClassTransformer transformer, boolean singlePass) {
+        this(transformer, singlePass, TransformationDiagnostics.OFF);
+    }
+
+    /**
+     * @param singlePass If true, all actions are applied to the same in-memory
+     * ClassNode which is serialized once at the end; otherwise, the class is
+     * serialized and parsed again after each action.
+     * @param diagnostics Decides whether resulting classes are traced and/or verified.
+     */
+    public ExhaustiveClassTransformer(ClassTransformer transformer, boolean singlePass, TransformationDiagnostics diagnostics) {
         this.transformer = transformer;
+        this.singlePass = singlePass;
+        this.diagnostics = diagnostics;
     }
 
     public byte[] transform(byte[] classfileBuffer) {
+        return singlePass ? transformSinglePass(classfileBuffer) : transformRoundTrip(classfileBuffer);
+    }
+
+    private byte[] transformSinglePass(byte[] classfileBuffer) {
+        ClassReader classReader = new ClassReader(classfileBuffer);
+        ClassNode classNode = new ClassNode(Opcodes.ASM5);
+        classReader.accept(classNode, ClassReader.EXPAND_FRAMES);
+
+        // Only kept for this transformation, such that nothing is retained per class afterwards
+        BitSet appliedTransformers = new BitSet();
+        boolean wasChanged = false;
+        while(true) {
+            ClassAction action = transformer.resolve(classNode, appliedTransformers);
+
+            if(action == null)
+                break;
+
+            action.perform(classNode);
+            wasChanged = true;
+        }
+
+        if(!wasChanged)
+            return classfileBuffer;
+
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS|ClassWriter.COMPUTE_FRAMES);
+        classNode.accept(classWriter);
+
+        classfileBuffer = classWriter.toByteArray();
+
+        diagnostics.check(classNode.name, classfileBuffer);
+
+        return classfileBuffer;
+    }
+
+    private byte[] transformRoundTrip(byte[] classfileBuffer) {
+        BitSet appliedTransformers = new BitSet();
         while(true) {
             ClassReader classReader = new ClassReader(classfileBuffer);
             ClassNode classNode = new ClassNode(Opcodes.ASM5);
             classReader.accept(classNode, ClassReader.EXPAND_FRAMES);
-            ClassAction action = transformer.resolve(classNode);
+            ClassAction action = transformer.resolve(classNode, appliedTransformers);
 
             if(action == null)
                 break;
 
             action.perform(classNode);
-            
-            classNode.accept(new TraceClassVisitor(new PrintWriter(System.out)));
-            
+
             ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS|ClassWriter.COMPUTE_FRAMES);
             classNode.accept(classWriter);
 
             classfileBuffer = classWriter.toByteArray();
-            
-            new ClassReader(classfileBuffer).accept(new TraceClassVisitor(new PrintWriter(System.out)), 0);
-            CheckClassAdapter.verify(new ClassReader(classfileBuffer), false, new PrintWriter(System.out));
+
+            diagnostics.check(classNode.name, classfileBuffer);
         }
-        
+
         return classfileBuffer;
     }
 }
@@ -0,0 +1,63 @@
+package jasy.lang;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Identifies the build of Jasy, which files derived from Jasy classes, such as
+ * module plans and cached transformed classes, are written by. Besides the
+ * implementation version, the version includes a stamp of the jar or class
+ * directory Jasy is loaded from, such that a rebuilt Jasy is distinguished
+ * even if its implementation version is unchanged.
+ */
+public class JasyVersion {
+    private static final String VERSION = computeVersion();
+
+    public static String get() {
+        return VERSION;
+    }
+
+    private static String computeVersion() {
+        Package jasyPackage = JasyVersion.class.getPackage();
+        String implementationVersion = jasyPackage != null ? jasyPackage.getImplementationVersion() : null;
+
+        return (implementationVersion != null ? implementationVersion : "dev") + "-" + getBuildStamp();
+    }
+
+    private static String getBuildStamp() {
+        CodeSource codeSource = JasyVersion.class.getProtectionDomain().getCodeSource();
+
+        if(codeSource != null && codeSource.getLocation() != null) {
+            try {
+                Path location = Paths.get(codeSource.getLocation().toURI());
+
+                if(Files.isDirectory(location)) {
+                    // Any recompiled class changes the latest modification time
+                    try(Stream<Path> files = Files.walk(location)) {
+                        long[] countAndLatest = new long[2];
+                        files.filter(f -> Files.isRegularFile(f)).forEach(f -> {
+                            countAndLatest[0]++;
+                            countAndLatest[1] = Math.max(countAndLatest[1], f.toFile().lastModified());
+                        });
+                        return Long.toHexString(countAndLatest[0]) + "." + Long.toHexString(countAndLatest[1]);
+                    }
+                } else if(Files.isRegularFile(location)) {
+                    return Long.toHexString(Files.size(location)) + "." + Long.toHexString(Files.getLastModifiedTime(location).toMillis());
+                }
+            } catch (URISyntaxException | IOException | RuntimeException ex) {
+                Logger.getLogger(JasyVersion.class.getName()).log(Level.WARNING, null, ex);
+            }
+        }
+
+        // Without a known build, nothing written by another JVM is trusted
+        return "unknown." + UUID.randomUUID();
+    }
+}
@@ -0,0 +1,167 @@
+package jasy.lang;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Class map of the module image of the running JDK (9 and later), as exposed
+ * by the jrt:/ file system. Only the list of packages, with the modules which
+ * contain them, is read up front; it is cached on disk per JDK build. The
+ * class names of a package are read from the module image the first time the
+ * package is looked up.
+ */
+public class JrtClassMap implements ClassMap {
+    private final FileSystem fileSystem;
+    // Maps each package name to the names of the modules containing it
+    private final ClassNameIndex packageToModulesIndex;
+    private final ConcurrentHashMap<String, Set<String>> packageToClassNamesMap = new ConcurrentHashMap<>();
+
+    private JrtClassMap(FileSystem fileSystem, ClassNameIndex packageToModulesIndex) {
+        this.fileSystem = fileSystem;
+        this.packageToModulesIndex = packageToModulesIndex;
+    }
+
+    public static boolean isAvailable() {
+        return getFileSystem() != null;
+    }
+
+    private static FileSystem getFileSystem() {
+        try {
+            return FileSystems.getFileSystem(URI.create("jrt:/"));
+        } catch(ProviderNotFoundException | FileSystemNotFoundException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @param cacheDirectory The directory in which the package list of the JDK
+     * is cached.
+     */
+    public static JrtClassMap open(Path cacheDirectory) throws IOException {
+        FileSystem fileSystem = getFileSystem();
+
+        if(fileSystem == null)
+            throw new IOException("The jrt:/ file system is not available.");
+
+        String stamp = System.getProperty("java.home") + "\n" + System.getProperty("java.runtime.version") + "\n";
+        Path cacheFile = cacheDirectory.resolve("jrt-" + Integer.toHexString(stamp.hashCode()) + ".idx");
+
+        if(Files.exists(cacheFile)) {
+            try {
+                ClassNameIndex index = ClassNameIndex.open(cacheFile);
+                if(index.getStamp().equals(stamp))
+                    return new JrtClassMap(fileSystem, index);
+            } catch (IOException ex) {
+                // Rebuild the cache below
+                Logger.getLogger(JrtClassMap.class.getName()).log(Level.WARNING, null, ex);
+            }
+        }
+
+        HashMap<String, Set<String>> packageToModulesMap = new HashMap<>();
+        try(DirectoryStream<Path> packages = Files.newDirectoryStream(fileSystem.getPath("/packages"))) {
+            for(Path packagePath: packages) {
+                HashSet<String> modules = new HashSet<>();
+                try(DirectoryStream<Path> modulePaths = Files.newDirectoryStream(packagePath)) {
+                    for(Path modulePath: modulePaths)
+                        modules.add(getFileName(modulePath));
+                }
+                packageToModulesMap.put(getFileName(packagePath), modules);
+            }
+        }
+
+        try {
+            ClassNameIndex.write(cacheFile, stamp, packageToModulesMap);
+            return new JrtClassMap(fileSystem, ClassNameIndex.open(cacheFile));
+        } catch (IOException ex) {
+            Logger.getLogger(JrtClassMap.class.getName()).log(Level.SEVERE, null, ex);
+            return new JrtClassMap(fileSystem, ClassNameIndex.fromMap(stamp, packageToModulesMap));
+        }
+    }
+
+    /**
+     * @return The simple names of the classes in the package; an empty set if
+     * the package only contains other packages; or null if there is no such
+     * package.
+     */
+    @Override
+    public Set<String> getClassNames(String packageName) {
+        Set<String> classNames = packageToClassNamesMap.get(packageName);
+
+        if(classNames == null) {
+            Set<String> modules = packageToModulesIndex.getClassNames(packageName);
+            if(modules == null)
+                return null;
+            classNames = readClassNames(packageName, modules);
+            Set<String> existingClassNames = packageToClassNamesMap.putIfAbsent(packageName, classNames);
+            if(existingClassNames != null)
+                classNames = existingClassNames;
+        }
+
+        return classNames;
+    }
+
+    @Override
+    public boolean containsPackage(String packageName) {
+        // The class names of the package need not be read
+        return packageToModulesIndex.containsPackage(packageName);
+    }
+
+    private Set<String> readClassNames(String packageName, Set<String> modules) {
+        HashSet<String> classNames = new HashSet<>();
+
+        for(String module: modules) {
+            Path packagePath = fileSystem.getPath("/modules", module, packageName.replace('.', '/'));
+            try(DirectoryStream<Path> classPaths = Files.newDirectoryStream(packagePath, "*.class")) {
+                for(Path classPath: classPaths) {
+                    String fileName = getFileName(classPath);
+                    classNames.add(fileName.substring(0, fileName.length() - 6));
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(JrtClassMap.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+
+        return Collections.unmodifiableSet(classNames);
+    }
+
+    /**
+     * @param className The name of a class, separated by '.'.
+     * @return The path of the class file in the module image; or null if there
+     * is no such class.
+     */
+    public Path findClassFile(String className) {
+        int packageEnd = className.lastIndexOf(".");
+        String packageName = packageEnd != -1 ? className.substring(0, packageEnd) : "";
+        Set<String> modules = packageToModulesIndex.getClassNames(packageName);
+
+        if(modules != null) {
+            for(String module: modules) {
+                Path classPath = fileSystem.getPath("/modules", module, className.replace('.', '/') + ".class");
+                if(Files.exists(classPath))
+                    return classPath;
+            }
+        }
+
+        return null;
+    }
+
+    private static String getFileName(Path path) {
+        // Directory names in jrt:/ may have a trailing separator
+        String fileName = path.getFileName().toString();
+        return fileName.endsWith("/") ? fileName.substring(0, fileName.length() - 1) : fileName;
+    }
+}
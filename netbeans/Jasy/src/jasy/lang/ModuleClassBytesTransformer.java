@@ -7,32 +7,61 @@ import jasy.lang.ast.ModuleAST;
 import jasy.lang.ast.Transformation;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.util.CheckClassAdapter;
 
 public class ModuleClassBytesTransformer implements ClassBytesTransformer {
     private String source;
+    private ModulePlan plan;
     private ClassResolver resolver;
     private ModuleAST module;
+    private ClassPreFilter preFilter;
+    private TransformationDiagnostics diagnostics;
+    private TransformedClassCache cache;
+    // Class loaders are weakly referenced, such that they, along with their 
+    // classes, can be unloaded. A transformer is kept for as long as its class 
+    // loader, since it refers to its class loader only weakly.
+    private final ClassLoaderMap<ExhaustiveClassTransformer> classLoaderToTransformerMap = new ClassLoaderMap<>();
 
     public ModuleClassBytesTransformer(String source, ClassResolver resolver) {
+        this(source, resolver, TransformationDiagnostics.OFF);
+    }
+
+    public ModuleClassBytesTransformer(String source, ClassResolver resolver, TransformationDiagnostics diagnostics) {
         this.source = source;
         this.resolver = resolver;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * @param cache Cache of transformed classes, which must have been opened
+     * for source; or null if transformed classes are not cached.
+     */
+    public ModuleClassBytesTransformer(String source, ClassResolver resolver, TransformationDiagnostics diagnostics, TransformedClassCache cache) {
+        this(source, resolver, diagnostics);
+        this.cache = cache;
+    }
+
+    /**
+     * @param plan The module parsed ahead of time, which is used instead of
+     * parsing its source.
+     * @param cache Cache of transformed classes, which must have been opened
+     * for the source of plan; or null if transformed classes are not cached.
+     */
+    public ModuleClassBytesTransformer(ModulePlan plan, ClassResolver resolver, TransformationDiagnostics diagnostics, TransformedClassCache cache) {
+        this(plan.getSource(), resolver, diagnostics, cache);
+        this.plan = plan;
     }
 
     @Override
     public void initialize(ClassLoader classLoader) {
         ASMCompiler compiler = new ASMCompiler(resolver);
         try {
-            module = compiler.compile(new ByteArrayInputStream(source.getBytes("UTF-8")));
+            module = plan != null ? plan.getModule() : compiler.compile(new ByteArrayInputStream(source.getBytes("UTF-8")));
             ArrayList<ASMCompiler.Message> errorMessages = new ArrayList<>();
             module.resolve(null, null, resolver, classLoader, errorMessages);
 
@@ -40,6 +69,9 @@ public class ModuleClassBytesTransformer implements ClassBytesTransformer {
                 String msg = errorMessages.stream().map(m -> m.toString()).collect(Collectors.joining("\n"));
                 throw new RuntimeException(msg);
             }
+            
+            preFilter = module.toPreFilter();
+            invalidateAll();
         } catch (IOException ex) {
             Logger.getLogger(ModuleClassBytesTransformer.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -47,25 +79,51 @@ public class ModuleClassBytesTransformer implements ClassBytesTransformer {
     
     @Override
     public byte[] transform(ClassLoader classLoader, byte[] bytes) {
-        try {
-            Function<Transformation<ClassNode>, Runnable> classTransformer = module.toClassTransformer(resolver, classLoader);
-            ExhaustiveClassTransformer eTransformer = new ExhaustiveClassTransformer(classTransformer);
-            byte[] newBytes = eTransformer.transform(bytes);
-            
-            InputStream classStream = new ByteArrayInputStream(newBytes);
-            ClassReader classReader = new ClassReader(classStream);
-//                    classReader.accept(new TraceClassVisitor(new PrintWriter(System.out)), 0);
-            CheckClassAdapter.verify(classReader, false, new PrintWriter(System.out));
-//                    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-//                    classReader.accept(classWriter, 0);
-//                    Textifier asmifier = new Textifier();
-//                    classWriter.
-            
-            return newBytes;
-        } catch (IOException ex) {
-            Logger.getLogger(ModuleClassBytesTransformer.class.getName()).log(Level.SEVERE, null, ex);
+        if(!preFilter.mayMatch(bytes))
+            return bytes;
+        
+        byte[] cacheKey = null;
+        if(cache != null) {
+            cacheKey = TransformedClassCache.getKey(bytes);
+            byte[] cachedBytes = cache.get(cacheKey, bytes);
+            if(cachedBytes != null)
+                return cachedBytes;
+        }
+        
+        byte[] newBytes = getTransformer(classLoader).transform(bytes);
+        
+        if(cache != null)
+            cache.put(cacheKey, bytes, newBytes);
+        
+        return newBytes;
+    }
+    
+    ExhaustiveClassTransformer getTransformer(ClassLoader classLoader) {
+        ExhaustiveClassTransformer eTransformer = classLoaderToTransformerMap.get(classLoader);
+        
+        if(eTransformer == null) {
+            // Building the transformer may load classes through classLoader and 
+            // thereby reenter this method; thus, the map is not locked meanwhile
+            Function<Transformation<ClassNode>, Runnable> classTransformer = module.toClassTransformer(resolver, classLoader, diagnostics);
+            // Verification (and tracing) of the result is taken care of by the exhaustive transformer
+            eTransformer = classLoaderToTransformerMap.getOrPut(classLoader, new ExhaustiveClassTransformer(classTransformer, true, diagnostics));
         }
         
-        return null;
+        return eTransformer;
+    }
+    
+    /**
+     * Discards the transformer built for classLoader, such that it is rebuilt
+     * from the module on the next transformation for classLoader.
+     */
+    public void invalidate(ClassLoader classLoader) {
+        classLoaderToTransformerMap.remove(classLoader);
+    }
+    
+    /**
+     * Discards the transformers built for all class loaders.
+     */
+    public void invalidateAll() {
+        classLoaderToTransformerMap.clear();
     }
 }
@@ -0,0 +1,153 @@
+package jasy.lang;
+
+import jasy.lang.ast.ModuleAST;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A module, which has been parsed ahead of time, such that it can be loaded
+ * without running the parser. The plan holds the unresolved syntax tree of the
+ * module along with its source; the tree is resolved once it is loaded, since
+ * resolution depends on the class loaders of the transformed classes.
+ *
+ * Plans are written by running this class with the paths of a source file and
+ * a plan file as arguments. A plan can only be read by the Jasy version, which
+ * wrote it; for other versions, only its source can be read, see 
+ * StalePlanException.
+ */
+public class ModulePlan {
+    private static final int MAGIC = 0x4A535950; // "JSYP"
+    private static final int FORMAT_VERSION = 1;
+
+    private final String source;
+    // The module is kept serialized, since it is modified when resolved
+    private final byte[] moduleBytes;
+
+    private ModulePlan(String source, byte[] moduleBytes) {
+        this.source = source;
+        this.moduleBytes = moduleBytes;
+    }
+
+    public static ModulePlan compile(String source) throws IOException {
+        // The resolver is not used before the module is resolved
+        ASMCompiler compiler = new ASMCompiler(null);
+        ModuleAST module = compiler.compile(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+
+        ByteArrayOutputStream moduleBytes = new ByteArrayOutputStream();
+        try(ObjectOutputStream output = new ObjectOutputStream(moduleBytes)) {
+            output.writeObject(module);
+        }
+
+        return new ModulePlan(source, moduleBytes.toByteArray());
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return A new copy of the unresolved module.
+     */
+    public ModuleAST getModule() throws IOException {
+        try(ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(moduleBytes))) {
+            return (ModuleAST)input.readObject();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    public static ModulePlan read(Path planFile) throws IOException {
+        try(DataInputStream input = new DataInputStream(Files.newInputStream(planFile))) {
+            return read(input, planFile.toString());
+        }
+    }
+
+    /**
+     * @param planFileName The name of the file, which planBytes were read 
+     * from, to report errors with.
+     */
+    public static ModulePlan read(byte[] planBytes, String planFileName) throws IOException {
+        try(DataInputStream input = new DataInputStream(new ByteArrayInputStream(planBytes))) {
+            return read(input, planFileName);
+        }
+    }
+
+    private static ModulePlan read(DataInputStream input, String planFileName) throws IOException {
+        if(input.readInt() != MAGIC)
+            throw new IOException("'" + planFileName + "' is not a module plan.");
+        if(input.readInt() != FORMAT_VERSION)
+            throw new IOException("'" + planFileName + "' is of an unsupported format version.");
+        String version = input.readUTF();
+        String source = new String(readBytes(input), StandardCharsets.UTF_8);
+        // The syntax tree may not be compatible with this version, whereas the
+        // source, which precedes it, is
+        if(!version.equals(JasyVersion.get()))
+            throw new StalePlanException(planFileName, version, source);
+
+        byte[] moduleBytes = readBytes(input);
+
+        return new ModulePlan(source, moduleBytes);
+    }
+
+    private static byte[] readBytes(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes the plan to a temporary file first, such that planFile is either
+     * replaced completely or left as it is.
+     */
+    public void write(Path planFile) throws IOException {
+        Path directory = planFile.toAbsolutePath().getParent();
+        Path tmpFile = Files.createTempFile(directory, planFile.getFileName().toString(), ".tmp");
+        try {
+            try(OutputStream fileOutput = Files.newOutputStream(tmpFile);
+                DataOutputStream output = new DataOutputStream(fileOutput)) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(JasyVersion.get());
+                writeBytes(output, source.getBytes(StandardCharsets.UTF_8));
+                writeBytes(output, moduleBytes);
+            }
+            Files.move(tmpFile, planFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    public static boolean isPlan(byte[] bytes) {
+        return bytes.length >= 4 && ByteBuffer.wrap(bytes).getInt(0) == MAGIC;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 2) {
+            System.out.println("Usage: ModulePlan <source file> <plan file>");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        String source = new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8);
+        compile(source).write(Paths.get(args[1]));
+        long end = System.currentTimeMillis();
+        System.out.println("Wrote '" + args[1] + "' in " + (end - start) + "ms");
+    }
+}
@@ -1,87 +1,19 @@
 package jasy.lang;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.Collections;
 import java.util.Set;
-import java.util.jar.JarInputStream;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import java.util.zip.ZipEntry;
-
-public class PackageInfo implements Serializable {
-    private byte[] content;
-    private ArrayDeque<PackageInfo> pendingMerges = new ArrayDeque<>();
-    
-    private Set<String> classNames = new HashSet<>();
-    private Map<String, PackageInfo> packageNameToPackagesMap = new HashMap<>();
-    
-    private void ensureLoaded() {
-        if(content != null) {
-            try(ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(content))) {
-                classNames = (HashSet<String>)ois.readObject();
-                packageNameToPackagesMap = (HashMap<String, PackageInfo>)ois.readObject();
-            } catch (IOException | ClassNotFoundException ex) {
-                Logger.getLogger(PackageInfo.class.getName()).log(Level.SEVERE, null, ex);
-            }
-            content = null;
-        }
-        
-        while(pendingMerges.size() > 0) {
-            PackageInfo packageInfo = pendingMerges.removeFirst();
-            packageInfo.ensureLoaded();
-            
-            this.classNames.addAll(packageInfo.classNames);
-            for (Map.Entry<String, PackageInfo> entry : packageInfo.packageNameToPackagesMap.entrySet()) {
-                PackageInfo p = packageNameToPackagesMap.get(entry.getKey());
-                if (p == null) {
-                    p = new PackageInfo();
-                    packageNameToPackagesMap.put(entry.getKey(), p);
-                }
-                p.merge(entry.getValue());
-            }
-        }
-    }
-
-    public static PackageInfo fromJar(String path) {
-        PackageInfo p = new PackageInfo();
-        System.out.println("Reading jar " + path);
-        try (final JarInputStream jarInputStream = new JarInputStream(new BufferedInputStream(new FileInputStream(path)))) {
-            ZipEntry entry;
-            while ((entry = jarInputStream.getNextEntry()) != null) {
-                String className = entry.getName();
-                if (className.endsWith(".class")) {
-                    p.addFromClassPath(className);
-                }
-            }
-        } catch (IOException ex) {
-            Logger.getLogger(CommonClassMap.class.getName()).log(Level.SEVERE, null, ex);
-        }
-        return p;
-    }
+import java.util.concurrent.ConcurrentHashMap;
 
-    public void merge(PackageInfo packageInfo) {
-        pendingMerges.add(packageInfo);
-//        this.classNames.addAll(packageInfo.classNames);
-//        for (Map.Entry<String, PackageInfo> entry : packageInfo.packageNameToPackagesMap.entrySet()) {
-//            PackageInfo p = packageNameToPackagesMap.get(entry.getKey());
-//            if (p == null) {
-//                p = new PackageInfo();
-//                packageNameToPackagesMap.put(entry.getKey(), p);
-//            }
-//            p.merge(entry.getValue());
-//        }
-    }
+/**
+ * Trie of packages, which may be read and extended by multiple threads at
+ * once. The sub packages of a package are only allocated once the first one
+ * is added, and packages, which have been found by name, are remembered by
+ * that name, such that looking them up again is a single hash lookup.
+ */
+public class PackageInfo {
+    private final Set<String> classNames = ConcurrentHashMap.newKeySet();
+    private volatile ConcurrentHashMap<String, PackageInfo> packageNameToPackagesMap;
+    private volatile ConcurrentHashMap<String, PackageInfo> qualifiedNameToPackagesMap;
 
     public void addFromClassPath(String classPath) {
         int packageEnd = classPath.lastIndexOf("/");
@@ -98,52 +30,92 @@ public class PackageInfo implements Serializable {
         PackageInfo p = getPackage(packageName, true);
         p.classNames.add(className);
     }
-    
+
     public PackageInfo getPackage(String packageName) {
+        PackageInfo p = getPackage(packageName, false);
+
+        if(p == null)
+            throw new RuntimeException("Could not resolve package '" + packageName + "'.");
+
+        return p;
+    }
+
+    /**
+     * @return The package; or null if there is no such package.
+     */
+    public PackageInfo findPackage(String packageName) {
         return getPackage(packageName, false);
     }
 
     private PackageInfo getPackage(String packageName, boolean allocate) {
-        ensureLoaded();
-        
+        ConcurrentHashMap<String, PackageInfo> qualifiedNameToPackages = qualifiedNameToPackagesMap;
+        if(qualifiedNameToPackages != null) {
+            PackageInfo p = qualifiedNameToPackages.get(packageName);
+            if(p != null)
+                return p;
+        }
+
         PackageInfo p = this;
-        for (String packageNamePart : packageName.split("\\.")) {
-            if(packageNamePart.length() > 0) {
-                p.ensureLoaded();
-                PackageInfo newP = p.packageNameToPackagesMap.get(packageNamePart);
-                if (newP == null) {
-                    if(allocate) {
-                        newP = new PackageInfo();
-                        p.packageNameToPackagesMap.put(packageNamePart, newP);
-                    } else {
-                        throw new RuntimeException("Could not resolve package '" + packageName + "'.");
-                    }
-                }
-                p = newP;
+        int partStart = 0;
+        while(partStart < packageName.length()) {
+            int partEnd = packageName.indexOf('.', partStart);
+            if(partEnd == -1)
+                partEnd = packageName.length();
+
+            if(partEnd > partStart) {
+                String packageNamePart = packageName.substring(partStart, partEnd);
+                p = allocate ? p.getOrCreateSubPackage(packageNamePart) : p.getSubPackage(packageNamePart);
+                if(p == null)
+                    return null;
             }
+
+            partStart = partEnd + 1;
         }
+
+        // Packages are never removed, so the found package remains valid
+        getQualifiedNameToPackagesMap().putIfAbsent(packageName, p);
+
         return p;
     }
 
-    public Set<String> getClassNames() {
-        ensureLoaded();
-        
-        return classNames;
+    private PackageInfo getSubPackage(String packageNamePart) {
+        ConcurrentHashMap<String, PackageInfo> packageNameToPackages = packageNameToPackagesMap;
+        return packageNameToPackages != null ? packageNameToPackages.get(packageNamePart) : null;
+    }
+
+    private PackageInfo getOrCreateSubPackage(String packageNamePart) {
+        ConcurrentHashMap<String, PackageInfo> packageNameToPackages = packageNameToPackagesMap;
+
+        if(packageNameToPackages == null) {
+            synchronized(this) {
+                packageNameToPackages = packageNameToPackagesMap;
+                if(packageNameToPackages == null) {
+                    packageNameToPackages = new ConcurrentHashMap<>();
+                    packageNameToPackagesMap = packageNameToPackages;
+                }
+            }
+        }
+
+        return packageNameToPackages.computeIfAbsent(packageNamePart, n -> new PackageInfo());
     }
-        
-    private void writeObject(ObjectOutputStream stream) throws IOException {
-        ByteArrayOutputStream aos = new ByteArrayOutputStream();
-        try(ObjectOutputStream oos = new ObjectOutputStream(aos)) {
-            oos.writeObject(classNames);
-            oos.writeObject(packageNameToPackagesMap);
-        } catch (IOException ex) {
-            Logger.getLogger(PackageInfo.class.getName()).log(Level.SEVERE, null, ex);
+
+    private ConcurrentHashMap<String, PackageInfo> getQualifiedNameToPackagesMap() {
+        ConcurrentHashMap<String, PackageInfo> qualifiedNameToPackages = qualifiedNameToPackagesMap;
+
+        if(qualifiedNameToPackages == null) {
+            synchronized(this) {
+                qualifiedNameToPackages = qualifiedNameToPackagesMap;
+                if(qualifiedNameToPackages == null) {
+                    qualifiedNameToPackages = new ConcurrentHashMap<>();
+                    qualifiedNameToPackagesMap = qualifiedNameToPackages;
+                }
+            }
         }
-        stream.writeObject(aos.toByteArray());
+
+        return qualifiedNameToPackages;
     }
 
-    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
-        content = (byte[])stream.readObject();
-        pendingMerges = new ArrayDeque<>();
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(classNames);
     }
 }
@@ -10,6 +10,11 @@ public class SingleClassLoader extends ClassLoader {
         this.classNode = classNode;
     }
     
+    public SingleClassLoader(ClassNode classNode, ClassLoader parent) {
+        super(parent);
+        this.classNode = classNode;
+    }
+    
     public Class<?> loadClass() {
         ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS|ClassWriter.COMPUTE_FRAMES);
         classNode.accept(classWriter);
@@ -0,0 +1,31 @@
+package jasy.lang;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a module plan was written by another Jasy version. The source of
+ * the module is still available, such that it can be parsed instead.
+ */
+public class StalePlanException extends IOException {
+    private static final long serialVersionUID = 1L;
+    
+    private String version;
+    private String source;
+
+    public StalePlanException(String planFileName, String version, String source) {
+        super("'" + planFileName + "' was written by Jasy version " + version + ".");
+        this.version = version;
+        this.source = source;
+    }
+
+    /**
+     * @return The Jasy version, which wrote the plan.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,93 @@
+package jasy.lang;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.function.Predicate;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.util.CheckClassAdapter;
+import org.objectweb.asm.util.TraceClassVisitor;
+
+/**
+ * Decides whether transformed and generated classes are traced and/or
+ * verified, and where the results go. Class names are in internal form,
+ * i.e. separated by '/'.
+ */
+public class TransformationDiagnostics {
+    public enum Level {
+        OFF,
+        VERIFY,
+        TRACE_AND_VERIFY
+    }
+
+    public interface Sink {
+        void trace(String className, String text);
+        void verified(String className, boolean isValid, String report);
+    }
+
+    public static final TransformationDiagnostics OFF = new TransformationDiagnostics(Level.OFF, className -> false, null);
+
+    private Level level;
+    private Predicate<String> classNameFilter;
+    private Sink sink;
+
+    public TransformationDiagnostics(Level level, Sink sink) {
+        this(level, className -> true, sink);
+    }
+
+    public TransformationDiagnostics(Level level, Predicate<String> classNameFilter, Sink sink) {
+        this.level = level;
+        this.classNameFilter = classNameFilter;
+        this.sink = sink;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public boolean isEnabledFor(String className) {
+        return level != Level.OFF && classNameFilter.test(className);
+    }
+
+    public boolean isTracingFor(String className) {
+        return level == Level.TRACE_AND_VERIFY && classNameFilter.test(className);
+    }
+
+    public void trace(String className, String text) {
+        if(isTracingFor(className))
+            sink.trace(className, text);
+    }
+
+    public void check(String className, byte[] classBytes) {
+        if(!isEnabledFor(className))
+            return;
+
+        if(level == Level.TRACE_AND_VERIFY) {
+            StringWriter traceWriter = new StringWriter();
+            new ClassReader(classBytes).accept(new TraceClassVisitor(new PrintWriter(traceWriter)), 0);
+            sink.trace(className, traceWriter.toString());
+        }
+
+        StringWriter verifyWriter = new StringWriter();
+        CheckClassAdapter.verify(new ClassReader(classBytes), false, new PrintWriter(verifyWriter));
+        String report = verifyWriter.toString();
+        sink.verified(className, report.isEmpty(), report);
+    }
+
+    public static Sink printTo(PrintStream out) {
+        return new Sink() {
+            @Override
+            public void trace(String className, String text) {
+                out.println(text);
+            }
+
+            @Override
+            public void verified(String className, boolean isValid, String report) {
+                if(!isValid) {
+                    out.println("Verification of " + className + " failed:");
+                    out.println(report);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,453 @@
+package jasy.lang;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent cache of transformed class bytes. Entries are keyed by the hash of
+ * the original class bytes and are kept in a directory per module, where the
+ * module is identified by the hash of its source code and the Jasy version. A
+ * class is hashed once per lookup; the hash is passed on as the key to put on
+ * a miss.
+ *
+ * The directory consists of numbered segment files, each of which consists of
+ * a sorted index of fixed size records followed by the transformed class
+ * bytes. Segments are memory mapped, such that a lookup is a binary search in
+ * the index of each segment, from the newest to the oldest. New entries are
+ * kept in memory until flush, which writes them to a new segment; once a given
+ * number of entries are pending, they are flushed. Whenever the newest segment
+ * has grown to at least half the size of the segment before it, the two are
+ * merged, such that there are logarithmically many segments and each entry is
+ * rewritten logarithmically many times.
+ */
+public class TransformedClassCache {
+    private static final int MAGIC = 0x4A535943; // "JSYC"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 12;
+    private static final int HASH_SIZE = 32;
+    private static final int RECORD_SIZE = HASH_SIZE + 8;
+    // Marks an entry for a class which is left unchanged by transformation
+    private static final int UNCHANGED = -1;
+    // Segments are mapped as a whole and addressed by int offsets
+    private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+    private static final String SEGMENT_SUFFIX = ".segment";
+    public static final int DEFAULT_FLUSH_THRESHOLD = 1000;
+
+    private static class Segment {
+        private final long number;
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final int count;
+
+        private Segment(long number, Path file, MappedByteBuffer buffer) {
+            this.number = number;
+            this.file = file;
+            this.buffer = buffer;
+            this.count = buffer.getInt(8);
+        }
+
+        private long size() {
+            return buffer.capacity();
+        }
+
+        private byte[] getHash(int index) {
+            byte[] hash = new byte[HASH_SIZE];
+            ByteBuffer records = buffer.duplicate();
+            records.position(HEADER_SIZE + index * RECORD_SIZE);
+            records.get(hash);
+            return hash;
+        }
+
+        /**
+         * @return The transformed bytes of the entry; or an empty buffer if
+         * the class is left unchanged by transformation.
+         */
+        private ByteBuffer getContent(int index) {
+            int recordOffset = HEADER_SIZE + index * RECORD_SIZE;
+            int dataOffset = buffer.getInt(recordOffset + HASH_SIZE);
+            int length = buffer.getInt(recordOffset + HASH_SIZE + 4);
+            if(length == UNCHANGED)
+                return ByteBuffer.allocate(0);
+
+            ByteBuffer content = buffer.duplicate();
+            content.position(HEADER_SIZE + count * RECORD_SIZE + dataOffset);
+            content.limit(content.position() + length);
+            return content.slice();
+        }
+
+        private int indexOf(byte[] hash) {
+            int low = 0;
+            int high = count - 1;
+            while(low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compareHash(buffer, HEADER_SIZE + middle * RECORD_SIZE, hash);
+
+                if(comparison < 0)
+                    low = middle + 1;
+                else if(comparison > 0)
+                    high = middle - 1;
+                else
+                    return middle;
+            }
+            return -1;
+        }
+    }
+
+    private static class Entry {
+        private final byte[] hash;
+        private final ByteBuffer content;
+
+        private Entry(byte[] hash, ByteBuffer content) {
+            this.hash = hash;
+            this.content = content;
+        }
+    }
+
+    private final Path segmentDirectory;
+    private final int flushThreshold;
+    // From the oldest to the newest; replaced as a whole, such that lookups
+    // need not lock
+    private volatile List<Segment> segments = Collections.emptyList();
+    // Including segments, which could not be mapped
+    private long lastSegmentNumber = -1;
+    private final ConcurrentHashMap<ByteBuffer, byte[]> pending = new ConcurrentHashMap<>();
+
+    private TransformedClassCache(Path segmentDirectory, int flushThreshold) {
+        this.segmentDirectory = segmentDirectory;
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * @param directory The directory in which the cache files are stored.
+     * @param moduleSource The source code of the module, which the cached
+     * classes are transformed by.
+     */
+    public static TransformedClassCache open(Path directory, String moduleSource) throws IOException {
+        return open(directory, moduleSource, DEFAULT_FLUSH_THRESHOLD);
+    }
+
+    /**
+     * @param flushThreshold The number of pending entries, upon which the
+     * pending entries are flushed.
+     */
+    public static TransformedClassCache open(Path directory, String moduleSource, int flushThreshold) throws IOException {
+        String moduleKey = toHex(hash((moduleSource + "\0" + JasyVersion.get()).getBytes(StandardCharsets.UTF_8)));
+        Path segmentDirectory = directory.resolve(moduleKey);
+        Files.createDirectories(segmentDirectory);
+        TransformedClassCache cache = new TransformedClassCache(segmentDirectory, flushThreshold);
+        cache.map();
+        return cache;
+    }
+
+    /**
+     * Maps the segments, which are currently in the directory; segments which
+     * are already mapped are reused.
+     */
+    private synchronized void map() throws IOException {
+        ArrayList<Long> numbers = new ArrayList<>();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(segmentDirectory, "*" + SEGMENT_SUFFIX)) {
+            for(Path file: files) {
+                String fileName = file.getFileName().toString();
+                try {
+                    numbers.add(Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ex) {
+                    Logger.getLogger(TransformedClassCache.class.getName()).log(Level.WARNING, "Ignoring unknown cache file {0}.", file);
+                }
+            }
+        }
+        Collections.sort(numbers);
+        if(!numbers.isEmpty())
+            lastSegmentNumber = Math.max(lastSegmentNumber, numbers.get(numbers.size() - 1));
+
+        ArrayList<Segment> newSegments = new ArrayList<>();
+        for(long number: numbers) {
+            Segment segment = segments.stream().filter(s -> s.number == number).findFirst().orElse(null);
+            if(segment == null)
+                segment = mapSegment(number);
+            if(segment != null)
+                newSegments.add(segment);
+        }
+
+        segments = Collections.unmodifiableList(newSegments);
+    }
+
+    private Segment mapSegment(long number) throws IOException {
+        Path file = segmentDirectory.resolve(number + SEGMENT_SUFFIX);
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() > MAX_SEGMENT_SIZE) {
+                Logger.getLogger(TransformedClassCache.class.getName()).log(Level.WARNING, "Ignoring oversized cache file {0}.", file);
+                return null;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                Logger.getLogger(TransformedClassCache.class.getName()).log(Level.WARNING, "Ignoring invalid cache file {0}.", file);
+                return null;
+            }
+
+            return new Segment(number, file, buffer);
+        } catch (NoSuchFileException ex) {
+            // Merged into another segment by another process meanwhile
+            return null;
+        }
+    }
+
+    /**
+     * @return The key of the class, which is passed on to get and put.
+     */
+    public static byte[] getKey(byte[] originalBytes) {
+        return hash(originalBytes);
+    }
+
+    /**
+     * @param key The key of originalBytes.
+     * @return The transformed bytes of the class; or originalBytes itself if
+     * the class is left unchanged by transformation; or null if the class is
+     * not in the cache.
+     */
+    public byte[] get(byte[] key, byte[] originalBytes) {
+        byte[] hash = key;
+
+        byte[] pendingBytes = pending.get(ByteBuffer.wrap(hash));
+        if(pendingBytes != null)
+            return pendingBytes.length == 0 ? originalBytes : pendingBytes;
+
+        List<Segment> currentSegments = segments;
+        for(int i = currentSegments.size() - 1; i >= 0; i--) {
+            Segment segment = currentSegments.get(i);
+            int index = segment.indexOf(hash);
+
+            if(index != -1) {
+                ByteBuffer content = segment.getContent(index);
+                if(!content.hasRemaining())
+                    return originalBytes;
+
+                byte[] transformedBytes = new byte[content.remaining()];
+                content.get(transformedBytes);
+                return transformedBytes;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param key The key of originalBytes.
+     * @param transformedBytes The transformed bytes of the class; or
+     * originalBytes itself if the class is left unchanged by transformation.
+     */
+    public void put(byte[] key, byte[] originalBytes, byte[] transformedBytes) {
+        pending.put(ByteBuffer.wrap(key), transformedBytes == originalBytes ? new byte[0] : transformedBytes);
+
+        if(pending.size() >= flushThreshold)
+            flushIfFull();
+    }
+
+    private synchronized void flushIfFull() {
+        // Another thread may have flushed meanwhile
+        if(pending.size() < flushThreshold)
+            return;
+
+        try {
+            flush();
+        } catch (IOException ex) {
+            Logger.getLogger(TransformedClassCache.class.getName()).log(Level.SEVERE, null, ex);
+            // The entries are dropped rather than kept, such that memory stays bounded
+            pending.clear();
+        }
+    }
+
+    /**
+     * Writes the entries put since the last flush to a new segment, which is
+     * then merged with the preceding segments as long as they are of
+     * comparable size. Only the entries of the merged segments are rewritten.
+     */
+    public synchronized void flush() throws IOException {
+        if(pending.isEmpty())
+            return;
+
+        ArrayList<Map.Entry<ByteBuffer, byte[]>> flushed = new ArrayList<>(pending.entrySet());
+        ArrayList<Entry> entries = new ArrayList<>();
+        for(Map.Entry<ByteBuffer, byte[]> entry: flushed)
+            entries.add(new Entry(entry.getKey().array(), ByteBuffer.wrap(entry.getValue())));
+        entries.sort((x, y) -> compareHashes(x.hash, y.hash));
+
+        // Other processes may share the directory
+        try(FileChannel lockChannel = FileChannel.open(segmentDirectory.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = lockChannel.lock()) {
+            map();
+            writeSegments(entries);
+            map();
+            mergeSegments();
+        }
+
+        for(Map.Entry<ByteBuffer, byte[]> entry: flushed)
+            pending.remove(entry.getKey(), entry.getValue());
+    }
+
+    private void mergeSegments() throws IOException {
+        List<Segment> currentSegments = segments;
+
+        while(currentSegments.size() >= 2) {
+            Segment older = currentSegments.get(currentSegments.size() - 2);
+            Segment newer = currentSegments.get(currentSegments.size() - 1);
+
+            if(older.size() > 2 * newer.size() || older.size() + newer.size() > MAX_SEGMENT_SIZE)
+                return;
+
+            // Both are sorted; of equal hashes, the newer entry is kept
+            ArrayList<Entry> entries = new ArrayList<>(older.count + newer.count);
+            int i = 0;
+            int j = 0;
+            while(i < older.count || j < newer.count) {
+                int comparison =
+                    i == older.count ? 1 :
+                    j == newer.count ? -1 :
+                    compareHashes(older.getHash(i), newer.getHash(j));
+
+                if(comparison < 0) {
+                    entries.add(new Entry(older.getHash(i), older.getContent(i)));
+                    i++;
+                } else {
+                    entries.add(new Entry(newer.getHash(j), newer.getContent(j)));
+                    j++;
+                    if(comparison == 0)
+                        i++;
+                }
+            }
+
+            // The merged segment is newer than both, such that it takes
+            // precedence if deleting them fails
+            writeSegments(entries);
+            delete(older.file);
+            delete(newer.file);
+            map();
+            currentSegments = segments;
+        }
+    }
+
+    /**
+     * Writes the sorted entries to as few new segments as possible.
+     */
+    private void writeSegments(List<Entry> entries) throws IOException {
+        int start = 0;
+        long size = HEADER_SIZE;
+
+        for(int i = 0; i < entries.size(); i++) {
+            long entrySize = RECORD_SIZE + entries.get(i).content.remaining();
+
+            if(size + entrySize > MAX_SEGMENT_SIZE && i > start) {
+                writeSegment(entries.subList(start, i));
+                start = i;
+                size = HEADER_SIZE;
+            }
+
+            size += entrySize;
+        }
+
+        writeSegment(entries.subList(start, entries.size()));
+    }
+
+    private void writeSegment(List<Entry> entries) throws IOException {
+        long number = lastSegmentNumber + 1;
+
+        ByteBuffer index = ByteBuffer.allocate(HEADER_SIZE + entries.size() * RECORD_SIZE);
+        index.putInt(MAGIC);
+        index.putInt(FORMAT_VERSION);
+        index.putInt(entries.size());
+        int dataOffset = 0;
+        for(Entry entry: entries) {
+            int length = entry.content.remaining();
+            index.put(entry.hash);
+            index.putInt(dataOffset);
+            index.putInt(length == 0 ? UNCHANGED : length);
+            dataOffset += length;
+        }
+        index.flip();
+
+        Path tmpFile = Files.createTempFile(segmentDirectory, number + SEGMENT_SUFFIX, ".tmp");
+        try {
+            try(FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+                write(channel, index);
+                // The contents are copied straight from their sources
+                for(Entry entry: entries)
+                    write(channel, entry.content.duplicate());
+                channel.force(true);
+            }
+            Files.move(tmpFile, segmentDirectory.resolve(number + SEGMENT_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+
+        map();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            // The file is still mapped on some platforms; it is shadowed by
+            // the merged segment meanwhile
+            Logger.getLogger(TransformedClassCache.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+
+    private static int compareHash(ByteBuffer buffer, int offset, byte[] hash) {
+        for(int i = 0; i < HASH_SIZE; i++) {
+            int comparison = Integer.compare(buffer.get(offset + i) & 0xFF, hash[i] & 0xFF);
+            if(comparison != 0)
+                return comparison;
+        }
+        return 0;
+    }
+
+    private static int compareHashes(byte[] x, byte[] y) {
+        for(int i = 0; i < HASH_SIZE; i++) {
+            int comparison = Integer.compare(x[i] & 0xFF, y[i] & 0xFF);
+            if(comparison != 0)
+                return comparison;
+        }
+        return 0;
+    }
+
+    private static byte[] hash(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for(byte b: bytes)
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+}
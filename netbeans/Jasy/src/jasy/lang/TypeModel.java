@@ -0,0 +1,119 @@
+package jasy.lang;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * A class as described by the header of its class file. Thus, a class can be
+ * looked up without being loaded through a class loader, which allows the
+ * compiler to check the classes it is about to transform. The header is read
+ * directly rather than through ASM, such that class files of any version can
+ * be looked up. Models are cached per class loader, which is only weakly 
+ * referenced. Names are in internal form, i.e. separated by '/'.
+ * 
+ * Only class selectors are checked against models; expressions are still 
+ * type checked against loaded classes.
+ */
+public class TypeModel {
+    private static final TypeModel NOT_FOUND = new TypeModel(0, null);
+
+    private static final Map<ClassLoader, ConcurrentHashMap<String, TypeModel>> loaderToModelsMap = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int access;
+    private final String name;
+
+    private TypeModel(int access, String name) {
+        this.access = access;
+        this.name = name;
+    }
+
+    /**
+     * @param className The name of the class, separated by either '.' or '/'.
+     * @param classLoader The class loader, through which the class file is
+     * found; or null for the system class loader.
+     * @return The model of the class; or null if there is no such class file.
+     */
+    public static TypeModel forName(String className, ClassLoader classLoader) {
+        if(classLoader == null)
+            classLoader = ClassLoader.getSystemClassLoader();
+
+        String internalName = className.replace('.', '/');
+        ConcurrentHashMap<String, TypeModel> models;
+        synchronized(loaderToModelsMap) {
+            models = loaderToModelsMap.computeIfAbsent(classLoader, cl -> new ConcurrentHashMap<>());
+        }
+
+        TypeModel model = models.get(internalName);
+
+        if(model == null) {
+            model = read(internalName, classLoader);
+            TypeModel existingModel = models.putIfAbsent(internalName, model);
+            if(existingModel != null)
+                model = existingModel;
+        }
+
+        return model != NOT_FOUND ? model : null;
+    }
+
+    private static TypeModel read(String internalName, ClassLoader classLoader) {
+        try(InputStream classStream = classLoader.getResourceAsStream(internalName + ".class")) {
+            if(classStream == null)
+                return NOT_FOUND;
+
+            byte[] classBytes = readBytes(classStream);
+            int constantPoolCount = ClassPreFilter.readUnsignedShort(classBytes, 8);
+            int constantPoolEnd = ClassPreFilter.getConstantPoolEntryOffset(classBytes, constantPoolCount);
+            int access = ClassPreFilter.readUnsignedShort(classBytes, constantPoolEnd);
+            // this_class refers to a CONSTANT_Class entry which refers to a CONSTANT_Utf8 entry
+            int thisClassIndex = ClassPreFilter.readUnsignedShort(classBytes, constantPoolEnd + 2);
+            int thisClassOffset = ClassPreFilter.getConstantPoolEntryOffset(classBytes, thisClassIndex);
+            int nameIndex = ClassPreFilter.readUnsignedShort(classBytes, thisClassOffset + 1);
+            int nameOffset = ClassPreFilter.getConstantPoolEntryOffset(classBytes, nameIndex);
+            int nameLength = ClassPreFilter.readUnsignedShort(classBytes, nameOffset + 1);
+            String name = new DataInputStream(new ByteArrayInputStream(classBytes, nameOffset + 1, 2 + nameLength)).readUTF();
+
+            return new TypeModel(access, name);
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(TypeModel.class.getName()).log(Level.SEVERE, null, ex);
+            return NOT_FOUND;
+        }
+    }
+
+    private static byte[] readBytes(InputStream stream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int length;
+        while((length = stream.read(buffer)) != -1)
+            bytes.write(buffer, 0, length);
+        return bytes.toByteArray();
+    }
+
+    public int getAccess() {
+        return access;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isInterface() {
+        return (access & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    /**
+     * Discards the models cached for classLoader.
+     */
+    public static void invalidate(ClassLoader classLoader) {
+        loaderToModelsMap.remove(classLoader != null ? classLoader : ClassLoader.getSystemClassLoader());
+    }
+}
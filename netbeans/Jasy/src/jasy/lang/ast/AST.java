@@ -3,10 +3,11 @@ package jasy.lang.ast;
 import jasy.lang.ASMCompiler.Message;
 import jasy.lang.ASMCompiler.Region;
 import jasy.lang.ClassResolver;
+import java.io.Serializable;
 import java.util.List;
 import org.objectweb.asm.Opcodes;
 
-public interface AST {
+public interface AST extends Serializable {
     Region getRegion();
     void setRegion(Region region);
     void resolve(Scope thisClass, TypeAST expectedResultType, ClassResolver resolver, ClassLoader classLoader, List<Message> errorMessages);
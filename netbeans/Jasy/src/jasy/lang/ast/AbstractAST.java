@@ -4,6 +4,8 @@ import jasy.lang.ASMCompiler;
 import jasy.lang.ASMCompiler.Region;
 
 public abstract class AbstractAST implements AST {
+    private static final long serialVersionUID = 1L;
+
     private Region region;
 
     protected AbstractAST(Region region) {
@@ -1,10 +1,14 @@
 package jasy.lang.ast;
 
 import jasy.lang.ASMCompiler;
+import jasy.lang.AmbiguousClassNameException;
+import jasy.lang.ClassResolutionCache;
 import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class AmbiguousNameAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     // Instances cannot garantee to be a valid expressions.
     // - rather, they are potential expressions
     
@@ -23,6 +27,35 @@ public class AmbiguousNameAST extends AbstractAST implements ExpressionAST {
         // or to a get field expression.
         
         nameParts.forEach(p -> p.resolve(thisClass, expectedResultType, resolver, classLoader, errorMessages));
+        
+        // Variables and fields shadow classes; then, the name is not resolved 
+        // as a class when prepared
+        String firstNamePart = getNamePart(0);
+        if(thisClass != null && (thisClass.isVariable(firstNamePart) || thisClass.getFieldType(classLoader, firstNamePart) != null))
+            return;
+        
+        // The leading name parts up to the first class, which they are 
+        // resolved as when prepared, must not be ambiguous
+        String className = "";
+        for(int i = 0; i < nameParts.size(); i++) {
+            if(i > 0)
+                className += ".";
+            className += getNamePart(i);
+            
+            try {
+                ClassResolutionCache.forName(resolver.resolveClassName(className), classLoader);
+                return;
+            } catch (AmbiguousClassNameException ex) {
+                errorMessages.add(new ASMCompiler.Message(getRegion(), ex.getMessage()));
+                return;
+            } catch (ClassNotFoundException ex) {
+                // Possibly a package
+            }
+        }
+    }
+    
+    private String getNamePart(int index) {
+        return ((StringLiteralAST)((LookupAST)nameParts.get(index)).name).value;
     }
 
     @Override
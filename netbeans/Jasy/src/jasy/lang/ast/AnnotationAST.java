@@ -7,6 +7,8 @@ import jasy.runtime.asm.CommonClassTransformer;
 import java.util.List;
 
 public class AnnotationAST extends AbstractAST {
+    private static final long serialVersionUID = 1L;
+
     public boolean isAdd;
     public TypeAST type;
 
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class ArrayAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public TypeAST type;
     public List<ExpressionAST> elements;
 
@@ -8,6 +8,8 @@ import java.util.Collections;
 import java.util.List;
 
 public class BinaryExpressionAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public static final int OPERATOR_ADD = 0;
     public static final int OPERATOR_SUB = 1;
     public static final int OPERATOR_MULT = 2;
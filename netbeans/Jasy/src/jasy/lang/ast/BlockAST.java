@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class BlockAST extends AbstractAST implements CodeAST {
+    private static final long serialVersionUID = 1L;
+
     public List<CodeAST> statements;
 
     public BlockAST(ASMCompiler.Region region, List<CodeAST> statements) {
@@ -14,8 +16,13 @@ public class BlockAST extends AbstractAST implements CodeAST {
 
     @Override
     public void resolve(Scope thisClass, TypeAST expectedResultType, ClassResolver resolver, ClassLoader classLoader, List<ASMCompiler.Message> errorMessages) {
-        statements.forEach(s -> 
-            s.resolve(thisClass, expectedResultType, resolver, classLoader, errorMessages));
+        // Variables are visible from their declaration to the end of the block
+        VariableScope blockScope = new VariableScope(thisClass);
+        statements.forEach(s -> {
+            s.resolve(blockScope, expectedResultType, resolver, classLoader, errorMessages);
+            if(s instanceof VariableDeclarationAST)
+                blockScope.declare(((VariableDeclarationAST)s).name);
+        });
     }
 
     @Override
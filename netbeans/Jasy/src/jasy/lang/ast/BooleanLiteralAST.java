@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class BooleanLiteralAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public boolean value;
 
     public BooleanLiteralAST(ASMCompiler.Region region, boolean value) {
@@ -2,7 +2,11 @@ package jasy.lang.ast;
 
 import jasy.lang.ASMCompiler;
 import jasy.lang.ASMCompiler.Region;
+import jasy.lang.AmbiguousClassNameException;
+import jasy.lang.ClassPreFilter;
 import jasy.lang.ClassResolver;
+import jasy.lang.TransformationDiagnostics;
+import jasy.lang.TypeModel;
 import jasy.runtime.asm.CommonClassTransformer;
 import jasy.runtime.asm.IfAllTransformer;
 import jasy.runtime.asm.IfAllWithin;
@@ -10,11 +14,14 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.MethodNode;
 
 public class ClassAST extends AbstractAST implements Scope {
+    private static final long serialVersionUID = 1L;
+
     public String variableId;
     public List<AnnotationAST> annotations;
     public Integer accessModifier;
@@ -34,23 +41,54 @@ public class ClassAST extends AbstractAST implements Scope {
     public void resolve(Scope thisClass, TypeAST expectedResultType, ClassResolver resolver, ClassLoader classLoader, List<ASMCompiler.Message> errorMessages) {    
         annotations.forEach(a -> a.resolve(this, expectedResultType, resolver, classLoader, errorMessages));
         if(type != null)
-            type.resolve(this, expectedResultType, resolver, classLoader, errorMessages);
+            resolveType(resolver, classLoader, errorMessages);
         members.forEach(m -> m.resolve(this, expectedResultType, resolver, classLoader, errorMessages));
     }
 
     public void populate(CommonClassTransformer transformer) {
         annotations.forEach(x -> x.populate(transformer));
         if(accessModifier != null)
-            transformer.addPredicate(c -> c.access == accessModifier);
+            transformer.addPredicate(c -> (c.access & accessModifier) != 0);
         if(type != null)
-            transformer.addPredicate(c -> c.name.equals(type.name));
+            transformer.addPredicate(c -> c.name.equals(getInternalName()));
         members.forEach(x -> x.populate(transformer));
     }
 
-    public void populate(ClassResolver classResolver, ClassLoader classLoader, IfAllTransformer<Transformation<ClassNode>> transformer) {
+    public void populate(ClassResolver classResolver, ClassLoader classLoader, TransformationDiagnostics diagnostics, IfAllTransformer<Transformation<ClassNode>> transformer) {
         IfAllTransformer<Transformation<FieldNode>> fieldTransformer = new IfAllTransformer<>();
         IfAllTransformer<Transformation<MethodNode>> methodTransformer = new IfAllTransformer<>();
         
+        if(accessModifier != null)
+            transformer.addPredicate(c -> (c.getTarget().access & accessModifier) != 0);
+        if(type != null) {
+            String internalName = getInternalName();
+            transformer.addPredicate(c -> c.getTarget().name.equals(internalName));
+        }
+        for(String annotationDescriptor: getRequiredAnnotationDescriptors())
+            transformer.addPredicate(c -> hasAnnotation(c.getTarget(), annotationDescriptor));
+        
+        // Members are populated once, such that meta generators are created 
+        // once per transformer rather than once per transformed class
+        IfAllTransformer<Transformation<ClassNode>> memberTransformer = new IfAllTransformer<>();
+        // The member selectors of the class are compiled into a single matcher
+        MemberMatcherGenerator matcherGenerator = new MemberMatcherGenerator(type != null ? getInternalName() : null);
+
+//        memberTransformer.addTransformer(new IfAllWithin<>(c2 -> (List<Transformation<FieldNode>>)c2.getTarget().fields.stream().map(f -> c2.inner(f)).collect(Collectors.toList()), fieldTransformer));
+//        memberTransformer.addTransformer(new IfAllWithin<>(c2 -> (List<Transformation<MethodNode>>)c2.getTarget().methods.stream().map(f -> c2.inner(f)).collect(Collectors.toList()), methodTransformer));
+
+        members.forEach(x -> x.accept(new MemberVisitor() {
+            @Override
+            public void visitMethod(MethodAST ctx) {
+                ctx.populate(classResolver, classLoader, diagnostics, matcherGenerator, memberTransformer, methodTransformer);
+            }
+
+            @Override
+            public void visitField(FieldAST ctx) {
+                ctx.populate(classResolver, classLoader, matcherGenerator, memberTransformer, fieldTransformer);
+            }
+        }));
+        matcherGenerator.generate(diagnostics);
+        
         transformer.addTransformer(c -> {
 //            Hashtable<String, Object> variables = new Hashtable<>();
                 
@@ -60,33 +98,56 @@ public class ClassAST extends AbstractAST implements Scope {
             }
             
 //            c = c.inner(c.getTarget(), variables);
-                
-            IfAllTransformer<Transformation<ClassNode>> memberTransformer = new IfAllTransformer<>();
-
-//            memberTransformer.addTransformer(new IfAllWithin<>(c2 -> (List<Transformation<FieldNode>>)c2.getTarget().fields.stream().map(f -> c2.inner(f)).collect(Collectors.toList()), fieldTransformer));
-//            memberTransformer.addTransformer(new IfAllWithin<>(c2 -> (List<Transformation<MethodNode>>)c2.getTarget().methods.stream().map(f -> c2.inner(f)).collect(Collectors.toList()), methodTransformer));
-            
-            members.forEach(x -> x.accept(new MemberVisitor() {
-                @Override
-                public void visitMethod(MethodAST ctx) {
-                    ctx.populate(classResolver, classLoader, memberTransformer, methodTransformer);
-                }
-
-                @Override
-                public void visitField(FieldAST ctx) {
-                    ctx.populate(classResolver, classLoader, memberTransformer, fieldTransformer);
-                }
-            }));
 
             return memberTransformer.apply(c);
         });
     }
 
+    public void populate(ClassPreFilter preFilter) {
+        preFilter.addRequirement(type != null ? getInternalName() : null, accessModifier, getRequiredAnnotationDescriptors());
+    }
+    
+    private void resolveType(ClassResolver resolver, ClassLoader classLoader, List<ASMCompiler.Message> errorMessages) {
+        // The selected class is about to be transformed; thus, only its class 
+        // file is looked up, rather than loading the class
+        try {
+            type.name = resolver.resolveClassName(type.name);
+        } catch (AmbiguousClassNameException ex) {
+            errorMessages.add(new ASMCompiler.Message(type.getRegion(), ex.getMessage()));
+            return;
+        }
+        
+        if(TypeModel.forName(type.name, classLoader) == null)
+            errorMessages.add(new ASMCompiler.Message(type.getRegion(), "Could not resolve type " + type.name + "."));
+    }
+    
+    private String getInternalName() {
+        return type.name.replace(".", "/");
+    }
+    
+    private List<String> getRequiredAnnotationDescriptors() {
+        return annotations.stream()
+            .filter(a -> !a.isAdd)
+            .map(a -> "L" + a.type.getName().replace(".", "/") + ";")
+            .collect(Collectors.toList());
+    }
+    
+    @SuppressWarnings("unchecked") // The annotation lists of ASM class nodes are raw
+    private static boolean hasAnnotation(ClassNode classNode, String annotationDescriptor) {
+        return hasAnnotation((List<AnnotationNode>)classNode.visibleAnnotations, annotationDescriptor) ||
+            hasAnnotation((List<AnnotationNode>)classNode.invisibleAnnotations, annotationDescriptor);
+    }
+    
+    private static boolean hasAnnotation(List<AnnotationNode> annotations, String annotationDescriptor) {
+        return annotations != null && annotations.stream().anyMatch(a -> a.desc.equals(annotationDescriptor));
+    }
+
     @Override
     public TypeAST getFieldType(ClassLoader classLoader, String fieldName) {
         Optional<TypeAST> field = members.stream()
             .filter(m -> m instanceof FieldAST)
-            .filter(f -> ((FieldAST)f).selector.name.equals(fieldName))
+            // Field selectors need not have a name
+            .filter(f -> fieldName.equals(((FieldAST)f).selector.name))
             .map(f -> ((FieldAST)f).selector.fieldType).findFirst();
         
         return field.isPresent() ? field.get() : null;
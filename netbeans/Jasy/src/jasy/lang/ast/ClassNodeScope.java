@@ -1,5 +1,6 @@
 package jasy.lang.ast;
 
+import jasy.lang.ClassResolutionCache;
 import java.util.List;
 import java.util.Optional;
 import java.util.logging.Level;
@@ -37,7 +38,7 @@ public class ClassNodeScope implements Scope {
                     case "char": c = char.class; break;
 //                    default: c = Class.forName(t.getClassName());
 //                    default: c = classLoader.loadClass(t.getClassName());
-                    default: c = Class.forName(t.getClassName(), true, classLoader);
+                    default: c = ClassResolutionCache.forName(t.getClassName(), classLoader);
                 }
                 
 //                Class<?> c = Class.forName(t.getClassName());
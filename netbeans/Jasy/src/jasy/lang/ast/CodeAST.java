@@ -4,6 +4,8 @@ import jasy.lang.ASMCompiler.Region;
 import java.util.Arrays;
 
 public interface CodeAST extends AST {
+    long serialVersionUID = 1L;
+
     <T> T accept(CodeVisitor<T> visitor);
     default CodeAST concat(CodeAST other) {
 //        return new BlockAST(new Region(this.getRegion().start, other.getRegion().end), Arrays.asList(this, other));
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class DoubleLiteralAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public double value;
     
     public DoubleLiteralAST(ASMCompiler.Region region, double value) {
@@ -1,5 +1,7 @@
 package jasy.lang.ast;
 
+import jasy.lang.AmbiguousClassNameException;
+import jasy.lang.ClassResolutionCache;
 import jasy.lang.ClassResolver;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
@@ -414,21 +416,11 @@ public class ExpressionPreparer implements CodeVisitor<PreparedExpressionAST> {
     }
 
     private List<java.lang.reflect.Method> getCompatibleMethodsWith(Class<?> c, boolean staticOnly, String name, List<PreparedExpressionAST> arguments) {
-        return Arrays.asList(c.getMethods()).stream().filter((m) -> methodIsCompatibleWith(m, staticOnly, name, arguments)).collect(Collectors.toList());
+        return MemberIndex.of(c).getCompatibleMethods(staticOnly, name, getArgumentTypes(arguments));
     }
-
-    private boolean methodIsCompatibleWith(java.lang.reflect.Method m, boolean staticOnly, String name, List<PreparedExpressionAST> arguments) {
-        if ((!staticOnly || Modifier.isStatic(m.getModifiers())) && m.getName().equals(name) && m.getParameterCount() == arguments.size()) {
-            for (int i = 0; i < m.getParameterCount(); i++) {
-                Class<?> pt = m.getParameterTypes()[i];
-                PreparedExpressionAST a = arguments.get(i);
-                if (!parameterTypeIsCompatibleWith(pt, a)) {
-                    return false;
-                }
-            }
-            return true;
-        }
-        return false;
+    
+    private List<Class<?>> getArgumentTypes(List<PreparedExpressionAST> arguments) {
+        return arguments.stream().map(a -> a.getArgumentType(classLoader)).collect(Collectors.toList());
     }
 
     @Override
@@ -624,10 +616,13 @@ public class ExpressionPreparer implements CodeVisitor<PreparedExpressionAST> {
                 if(nameIndex > 0)
                     className += ".";
                 className += ((StringLiteralAST)namePart.name).value;
-                className = classResolver.resolveClassName(className);
                 
                 try {
-                    target = new NameTypeAST(null, Class.forName(className, true, classLoader));
+                    className = classResolver.resolveClassName(className);
+                    target = new NameTypeAST(null, ClassResolutionCache.forName(className, classLoader));
+                } catch (AmbiguousClassNameException ex) {
+                    // Reported as an error by AmbiguousNameAST.resolve; thus, not reached for resolved modules
+                    throw new IllegalStateException(ex.getMessage(), ex);
                 } catch (ClassNotFoundException ex) {
                     
                 } catch (SecurityException ex) {
@@ -795,8 +790,9 @@ public class ExpressionPreparer implements CodeVisitor<PreparedExpressionAST> {
             }
 
             @Override
-            public boolean canBeArgumentFor(ClassLoader classLoader, Class<?> parameterType) {
-                return !parameterType.isPrimitive();
+            public Class<?> getArgumentType(ClassLoader classLoader) {
+                // Fits any reference type
+                return null;
             }
 
             @Override
@@ -824,7 +820,7 @@ public class ExpressionPreparer implements CodeVisitor<PreparedExpressionAST> {
                     String desc = ctx.type.getDescriptor();
 //                    Class arrayClass = Class.forName("[" + desc.replace("/", "."));
 //                    Class arrayClass = classLoader.loadClass("[" + desc.replace("/", "."));
-                    Class arrayClass = Class.forName("[" + desc.replace("/", "."), true, classLoader);
+                    Class arrayClass = ClassResolutionCache.forName("[" + desc.replace("/", "."), classLoader);
                     return new NameTypeAST(null, arrayClass);
                 } catch (ClassNotFoundException ex) {
                     Logger.getLogger(MethodAST.class.getName()).log(Level.SEVERE, null, ex);
@@ -889,26 +885,7 @@ public class ExpressionPreparer implements CodeVisitor<PreparedExpressionAST> {
     }
 
     private List<Constructor<?>> getCompatibleConstructorsWith(Class<?> c, List<PreparedExpressionAST> arguments) {
-        return Arrays.asList(c.getConstructors()).stream().filter((cons) -> 
-            constructorIsCompatibleWith(cons, arguments)).collect(Collectors.toList());
-    }
-
-    private boolean constructorIsCompatibleWith(Constructor<?> cons, List<PreparedExpressionAST> arguments) {
-        if (cons.getParameterCount() == arguments.size()) {
-            for (int i = 0; i < cons.getParameterCount(); i++) {
-                Class<?> pt = cons.getParameterTypes()[i];
-                PreparedExpressionAST a = arguments.get(i);
-                if (!parameterTypeIsCompatibleWith(pt, a)) {
-                    return false;
-                }
-            }
-            return true;
-        }
-        return false;
-    }
-
-    private boolean parameterTypeIsCompatibleWith(Class<?> pt, PreparedExpressionAST a) {
-        return a.canBeArgumentFor(classLoader, pt);
+        return MemberIndex.of(c).getCompatibleConstructors(getArgumentTypes(arguments));
     }
 
     @Override
@@ -7,6 +7,7 @@ import jasy.runtime.asm.CommonClassTransformer;
 import jasy.runtime.asm.CompositeTransformer;
 import jasy.runtime.asm.IfAllTransformer;
 import jasy.runtime.asm.IfAllWithin;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
@@ -22,6 +23,8 @@ import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.MethodNode;
 
 public class FieldAST extends AbstractAST implements MemberAST {
+    private static final long serialVersionUID = 1L;
+
     public String variableId;
     public boolean isAdd;
     public FieldSelectorAST selector;
@@ -54,7 +57,7 @@ public class FieldAST extends AbstractAST implements MemberAST {
         }
     }
 
-    public void populate(ClassResolver classResolver, ClassLoader classLoader, CompositeTransformer<Transformation<ClassNode>> classTransformer, IfAllTransformer<Transformation<FieldNode>> transformer) {
+    public void populate(ClassResolver classResolver, ClassLoader classLoader, MemberMatcherGenerator matcherGenerator, CompositeTransformer<Transformation<ClassNode>> classTransformer, IfAllTransformer<Transformation<FieldNode>> transformer) {
         if(!isAdd) {
             IfAllTransformer<Transformation<ClassNode>> fieldsTransformerSequence = new IfAllTransformer<>();
             
@@ -64,24 +67,7 @@ public class FieldAST extends AbstractAST implements MemberAST {
                 return() -> { };
             });
             
-            Predicate<FieldNode> fieldFilter = f -> true;
-            
-            if(selector.accessModifier != null)
-                fieldFilter = fieldFilter.and(f -> (f.access & selector.accessModifier) != 0);
-            if(selector.isStatic != null) {
-                if(selector.isStatic)
-                    fieldFilter = fieldFilter.and(f -> (f.access & Opcodes.ACC_STATIC) != 0);
-                else
-                    fieldFilter = fieldFilter.and(f -> (f.access & Opcodes.ACC_STATIC) == 0);
-            }
-            if(selector.fieldType != null)
-                fieldFilter = fieldFilter.and(f -> Type.getType(f.desc).getClassName().equals(selector.fieldType.getDescriptor()));
-            if(selector.name != null)
-                fieldFilter = fieldFilter.and(f -> f.name.equals(selector.name));
-            
-            Predicate<FieldNode> ff = fieldFilter;
-            fieldFilter = f ->
-                ff.test(f);
+            Predicate<FieldNode> fieldFilter = matcherGenerator.addFieldSelector(selector.accessModifier, selector.isStatic, selector.fieldType, selector.name);
             
             fieldsTransformerSequence.addTransformer(new IfAllWithin<>(c -> c.getTarget().fields, fieldFilter, (c, f) -> {
                 if(variableId != null)
@@ -92,6 +78,10 @@ public class FieldAST extends AbstractAST implements MemberAST {
             
             classTransformer.addTransformer(fieldsTransformerSequence);
         } else {
+            // The transformer is retained for as long as the class loader, so 
+            // it refers to the class loader only weakly
+            WeakReference<ClassLoader> classLoaderReference = new WeakReference<>(classLoader);
+            
             classTransformer.addTransformer(c -> {
                 return () -> {
                     int fieldAccess = AST.Util.getAccessModifier(selector.accessModifier, selector.isStatic);
@@ -110,7 +100,7 @@ public class FieldAST extends AbstractAST implements MemberAST {
                                     if(name.equals("<init>")) {
                                         GeneratorAdapter generatorAdapter = new GeneratorAdapter(cons, cons.access, cons.name, cons.desc);
                                         generatorAdapter.loadThis();
-                                        PreparedAST pa = MethodAST.toExpression(new ClassNodeScope(c.getTarget()), FieldAST.this.value, classResolver, classLoader, new Hashtable<>(), new Hashtable<>());
+                                        PreparedAST pa = MethodAST.toExpression(new ClassNodeScope(c.getTarget()), FieldAST.this.value, classResolver, classLoaderReference.get(), new Hashtable<>(), new Hashtable<>());
                                         pa.generate(c, new MethodCodeGenerator(generatorAdapter, null), new InsnList());
                                         String className = c.getTarget().name;
                                         generatorAdapter.putField(Type.getType(className), selector.name, Type.getType(selector.fieldType.getDescriptor(className)));
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class FieldGetAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
 //    public ExpressionAST target;
 //    public String fieldName;
 //    public TypeAST fieldType;
@@ -4,12 +4,14 @@ import jasy.lang.ASMCompiler;
 import jasy.lang.ClassResolver;
 import jasy.runtime.asm.CommonClassTransformer;
 import jasy.runtime.asm.IfAllTransformer;
+import java.io.Serializable;
 import java.util.List;
-import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.Type;
+import java.util.function.Predicate;
 import org.objectweb.asm.tree.FieldNode;
 
-public class FieldSelectorAST {
+public class FieldSelectorAST implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     public Integer accessModifier;
     public Boolean isStatic;
     public TypeAST fieldType;
@@ -31,14 +33,8 @@ public class FieldSelectorAST {
         
     }
 
-    public void populate(IfAllTransformer<Transformation<FieldNode>> transformer) {
-        if(accessModifier != null)
-            transformer.addPredicate(f -> (f.getTarget().access & accessModifier) != 0);
-        if(isStatic != null)
-            transformer.addPredicate(f -> (f.getTarget().access & Opcodes.ACC_STATIC) != 0);
-        if(fieldType != null)
-            transformer.addPredicate(f -> Type.getType(f.getTarget().desc).getClassName().equals(fieldType.getDescriptor()));
-        if(name != null)
-            transformer.addPredicate(f -> f.getTarget().name.equals(name));
+    public void populate(MemberMatcherGenerator matcherGenerator, IfAllTransformer<Transformation<FieldNode>> transformer) {
+        Predicate<FieldNode> fieldFilter = matcherGenerator.addFieldSelector(accessModifier, isStatic, fieldType, name);
+        transformer.addPredicate(f -> fieldFilter.test(f.getTarget()));
     }
 }
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class FieldSetAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public ExpressionAST target;
     public TypeAST declaringClass;
     public String fieldName;
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class FloatLiteralAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public float value;
     
     public FloatLiteralAST(ASMCompiler.Region region, float value) {
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class GetClassAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public TypeAST t;
 
     public GetClassAST(ASMCompiler.Region region, TypeAST t) {
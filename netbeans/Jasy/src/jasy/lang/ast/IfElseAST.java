@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class IfElseAST extends AbstractAST implements CodeAST {
+    private static final long serialVersionUID = 1L;
+
     public ExpressionAST condition; 
     public CodeAST ifTrueBody;
     public CodeAST ifFalseBody;
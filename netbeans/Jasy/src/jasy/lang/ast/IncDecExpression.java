@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class IncDecExpression extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public static final int TIMING_PRE = 0;
     public static final int TIMING_POST = 1;
     public static final int OPERATOR_INC = 0;
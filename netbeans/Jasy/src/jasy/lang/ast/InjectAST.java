@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class InjectAST extends AbstractAST implements CodeAST {
+    private static final long serialVersionUID = 1L;
+
     public ExpressionAST expression;
 
     public InjectAST(ASMCompiler.Region region, ExpressionAST expression) {
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class InjectionBlockAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public List<InjectAST> injections;
 
     public InjectionBlockAST(ASMCompiler.Region region, List<InjectAST> injections) {
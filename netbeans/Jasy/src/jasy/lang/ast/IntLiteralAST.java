@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class IntLiteralAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public int value;
     
     public IntLiteralAST(ASMCompiler.Region region, int value) {
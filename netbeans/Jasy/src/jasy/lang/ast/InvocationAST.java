@@ -6,6 +6,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class InvocationAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public AST target; // Either ExpressionAST or TypeAST
 //    public TypeAST declaringClass;
     public String methodName;
@@ -6,6 +6,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public abstract class LiteralAST<T> extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public T value;
 
     public LiteralAST(Region region, T value) {
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class LongLiteralAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public long value;
     
     public LongLiteralAST(ASMCompiler.Region region, long value) {
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class LookupAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
 //    public String name;
 //
 //    public LookupAST(ASMCompiler.Region region, String name) {
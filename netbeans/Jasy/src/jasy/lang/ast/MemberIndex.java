@@ -0,0 +1,144 @@
+package jasy.lang.ast;
+
+import jasy.lang.ClassLoaderMap;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import org.objectweb.asm.Type;
+
+/**
+ * The public methods and constructors of a class, grouped by name and arity,
+ * together with the results of overload resolution against them. Argument 
+ * types are given as classes, where null stands for an argument, which fits 
+ * any reference type, i.e. null. Since compatibility depends on the identity
+ * of the argument types, resolutions are cached per class loader of the 
+ * argument types, which is only weakly referenced, and keyed by their 
+ * descriptors, such that the index, which lives as long as its class, does 
+ * not keep argument types of other class loaders alive. Resolutions for 
+ * argument types of several class loaders, other than the bootstrap class 
+ * loader, are not cached.
+ */
+public class MemberIndex {
+    private static final ClassValue<MemberIndex> indexes = new ClassValue<MemberIndex>() {
+        @Override
+        protected MemberIndex computeValue(Class<?> type) {
+            return new MemberIndex(type);
+        }
+    };
+    
+    private final HashMap<String, List<Method>> methodsByNameAndArity = new HashMap<>();
+    private final HashMap<Integer, List<Constructor<?>>> constructorsByArity = new HashMap<>();
+    private final ClassLoaderMap<Resolutions> resolutionsByLoader = new ClassLoaderMap<>();
+    
+    private static class Resolutions {
+        private final ConcurrentHashMap<List<Object>, List<Method>> methods = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<List<Object>, List<Constructor<?>>> constructors = new ConcurrentHashMap<>();
+    }
+
+    private MemberIndex(Class<?> c) {
+        for(Method m: c.getMethods())
+            methodsByNameAndArity.computeIfAbsent(m.getName() + "/" + m.getParameterCount(), k -> new ArrayList<>()).add(m);
+        for(Constructor<?> cons: c.getConstructors())
+            constructorsByArity.computeIfAbsent(cons.getParameterCount(), k -> new ArrayList<>()).add(cons);
+    }
+    
+    public static MemberIndex of(Class<?> c) {
+        return indexes.get(c);
+    }
+    
+    /**
+     * @return The public methods with the given name, which accept arguments of
+     * the given types.
+     */
+    public List<Method> getCompatibleMethods(boolean staticOnly, String name, List<Class<?>> argumentTypes) {
+        Resolutions resolutions = getResolutions(argumentTypes);
+        List<Object> key = resolutions != null ? Arrays.asList(staticOnly, name, getKey(argumentTypes)) : null;
+        List<Method> methods = resolutions != null ? resolutions.methods.get(key) : null;
+        
+        if(methods == null) {
+            methods = new ArrayList<>();
+            for(Method m: methodsByNameAndArity.getOrDefault(name + "/" + argumentTypes.size(), Collections.emptyList())) {
+                if((!staticOnly || Modifier.isStatic(m.getModifiers())) && areCompatible(m.getParameterTypes(), argumentTypes))
+                    methods.add(m);
+            }
+            methods = Collections.unmodifiableList(methods);
+            if(resolutions != null)
+                resolutions.methods.putIfAbsent(key, methods);
+        }
+        
+        return methods;
+    }
+    
+    /**
+     * @return The public constructors, which accept arguments of the given 
+     * types.
+     */
+    public List<Constructor<?>> getCompatibleConstructors(List<Class<?>> argumentTypes) {
+        Resolutions resolutions = getResolutions(argumentTypes);
+        List<Object> key = resolutions != null ? getKey(argumentTypes) : null;
+        List<Constructor<?>> constructors = resolutions != null ? resolutions.constructors.get(key) : null;
+        
+        if(constructors == null) {
+            constructors = new ArrayList<>();
+            for(Constructor<?> cons: constructorsByArity.getOrDefault(argumentTypes.size(), Collections.emptyList())) {
+                if(areCompatible(cons.getParameterTypes(), argumentTypes))
+                    constructors.add(cons);
+            }
+            constructors = Collections.unmodifiableList(constructors);
+            if(resolutions != null)
+                resolutions.constructors.putIfAbsent(key, constructors);
+        }
+        
+        return constructors;
+    }
+    
+    /**
+     * @return The resolutions for the class loader of the argument types; or 
+     * null if they stem from several class loaders.
+     */
+    private Resolutions getResolutions(List<Class<?>> argumentTypes) {
+        ClassLoader loader = null;
+        for(Class<?> argumentType: argumentTypes) {
+            ClassLoader argumentLoader = argumentType != null ? argumentType.getClassLoader() : null;
+            if(argumentLoader != null && argumentLoader != loader) {
+                if(loader != null)
+                    return null;
+                loader = argumentLoader;
+            }
+        }
+        
+        Resolutions resolutions = resolutionsByLoader.get(loader);
+        if(resolutions == null)
+            resolutions = resolutionsByLoader.getOrPut(loader, new Resolutions());
+        return resolutions;
+    }
+    
+    /**
+     * @return The descriptors of the argument types, each followed by whether 
+     * it is of the bootstrap class loader, since the class loader of the 
+     * resolutions may define classes of the same name.
+     */
+    private static List<Object> getKey(List<Class<?>> argumentTypes) {
+        ArrayList<Object> key = new ArrayList<>(argumentTypes.size() * 2);
+        for(Class<?> argumentType: argumentTypes) {
+            key.add(argumentType != null ? Type.getDescriptor(argumentType) : null);
+            key.add(argumentType == null || argumentType.getClassLoader() == null);
+        }
+        return key;
+    }
+    
+    private static boolean areCompatible(Class<?>[] parameterTypes, List<Class<?>> argumentTypes) {
+        for(int i = 0; i < parameterTypes.length; i++) {
+            Class<?> argumentType = argumentTypes.get(i);
+            if(argumentType != null ? !parameterTypes[i].isAssignableFrom(argumentType) : parameterTypes[i].isPrimitive())
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,201 @@
+package jasy.lang.ast;
+
+import jasy.lang.SingleClassLoader;
+import jasy.lang.TransformationDiagnostics;
+import jasy.runtime.asm.MemberMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Compiles the member selectors of a class transformer into a single 
+ * generated MemberMatcher, which compares access flags, names, and raw 
+ * descriptors directly. Selectors are added while the class transformer is
+ * populated and yield predicates, which may only be tested once the matcher 
+ * has been generated.
+ */
+public class MemberMatcherGenerator {
+    private static final AtomicInteger matcherCount = new AtomicInteger();
+    
+    private static class Selector {
+        private final Integer accessModifier;
+        private final Boolean isStatic;
+        private final String name;
+        // Either the complete descriptor or a prefix and/or suffix of it
+        private final String descriptor;
+        private final String descriptorPrefix;
+        private final String descriptorSuffix;
+
+        private Selector(Integer accessModifier, Boolean isStatic, String name, String descriptor, String descriptorPrefix, String descriptorSuffix) {
+            this.accessModifier = accessModifier;
+            this.isStatic = isStatic;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.descriptorPrefix = descriptorPrefix;
+            this.descriptorSuffix = descriptorSuffix;
+        }
+    }
+    
+    private final String thisClassName;
+    private ArrayList<Selector> selectors = new ArrayList<>();
+    private MemberMatcher matcher;
+
+    /**
+     * @param thisClassName The internal name of the selected class, which
+     * types refering to this class are resolved against; or null if the class
+     * is not selected by name.
+     */
+    public MemberMatcherGenerator(String thisClassName) {
+        this.thisClassName = thisClassName;
+    }
+    
+    /**
+     * @param accessModifier Access flags of which at least one must be set; or
+     * null if any access is allowed.
+     * @param isStatic Whether the field must be static or must not be static;
+     * or null if either is allowed.
+     * @param fieldType The type of the field; or null if any type is allowed.
+     * @param name The name of the field; or null if any name is allowed.
+     */
+    public Predicate<FieldNode> addFieldSelector(Integer accessModifier, Boolean isStatic, TypeAST fieldType, String name) {
+        String descriptor = fieldType != null ? fieldType.getDescriptor(thisClassName) : null;
+        int selector = addSelector(new Selector(accessModifier, isStatic, name, descriptor, null, null));
+        return f -> matcher.matches(selector, f.access, f.name, f.desc);
+    }
+    
+    /**
+     * @param returnType The return type of the method; or null if any return 
+     * type is allowed.
+     * @param parameterTypes The types of the parameters of the method; or null
+     * if any parameters are allowed.
+     */
+    public Predicate<MethodNode> addMethodSelector(Integer accessModifier, Boolean isStatic, TypeAST returnType, String name, List<TypeAST> parameterTypes) {
+        String descriptorPrefix = null;
+        if(parameterTypes != null) {
+            StringBuilder parametersDescriptor = new StringBuilder("(");
+            parameterTypes.forEach(pt -> parametersDescriptor.append(pt.getDescriptor(thisClassName)));
+            descriptorPrefix = parametersDescriptor.append(")").toString();
+        }
+        String descriptorSuffix = returnType != null ? ")" + returnType.getDescriptor(thisClassName) : null;
+        Selector s = descriptorPrefix != null && descriptorSuffix != null
+            ? new Selector(accessModifier, isStatic, name, descriptorPrefix + descriptorSuffix.substring(1), null, null)
+            : new Selector(accessModifier, isStatic, name, null, descriptorPrefix, descriptorSuffix);
+        int selector = addSelector(s);
+        return m -> matcher.matches(selector, m.access, m.name, m.desc);
+    }
+    
+    private int addSelector(Selector selector) {
+        selectors.add(selector);
+        return selectors.size() - 1;
+    }
+    
+    /**
+     * Generates and defines the matcher of the selectors added so far, unless 
+     * no selectors have been added.
+     * @throws IllegalStateException If the matcher could not be created.
+     */
+    @SuppressWarnings("unchecked") // The member lists of ASM class nodes are raw
+    public void generate(TransformationDiagnostics diagnostics) {
+        if(selectors.isEmpty())
+            return;
+        
+        ClassNode matcherClassNode = new ClassNode(Opcodes.ASM5);
+        matcherClassNode.version = Opcodes.V1_8;
+        matcherClassNode.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER;
+        matcherClassNode.name = "jasy/generator/MemberMatcher" + matcherCount.getAndIncrement();
+        matcherClassNode.superName = "java/lang/Object";
+        matcherClassNode.interfaces.add(Type.getInternalName(MemberMatcher.class));
+        
+        MethodNode defaultConstructor = new MethodNode(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        defaultConstructor.visitCode();
+        defaultConstructor.visitVarInsn(Opcodes.ALOAD, 0);
+        defaultConstructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        defaultConstructor.visitInsn(Opcodes.RETURN);
+        defaultConstructor.visitMaxs(1, 1);
+        defaultConstructor.visitEnd();
+        matcherClassNode.methods.add(defaultConstructor);
+        
+        matcherClassNode.methods.add(generateMatches());
+        
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS|ClassWriter.COMPUTE_FRAMES);
+        matcherClassNode.accept(classWriter);
+        diagnostics.check(matcherClassNode.name, classWriter.toByteArray());
+        
+        // The matcher interface must be the one known to the transformers
+        SingleClassLoader matcherClassLoader = new SingleClassLoader(matcherClassNode, MemberMatcher.class.getClassLoader());
+        try {
+            matcher = (MemberMatcher)matcherClassLoader.loadClass().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            // Without a matcher, none of the selectors can be tested
+            throw new IllegalStateException("Could not create the member matcher.", ex);
+        }
+    }
+    
+    private MethodNode generateMatches() {
+        // Locals: 0 = this, 1 = selector, 2 = access, 3 = name, 4 = desc
+        MethodNode matches = new MethodNode(Opcodes.ACC_PUBLIC, "matches", "(IILjava/lang/String;Ljava/lang/String;)Z", null, null);
+        matches.visitCode();
+        
+        Label noMatch = new Label();
+        Label[] selectorLabels = new Label[selectors.size()];
+        for(int i = 0; i < selectorLabels.length; i++)
+            selectorLabels[i] = new Label();
+        
+        matches.visitVarInsn(Opcodes.ILOAD, 1);
+        matches.visitTableSwitchInsn(0, selectorLabels.length - 1, noMatch, selectorLabels);
+        
+        for(int i = 0; i < selectorLabels.length; i++) {
+            Selector selector = selectors.get(i);
+            matches.visitLabel(selectorLabels[i]);
+            
+            // Cheapest tests first
+            if(selector.accessModifier != null) {
+                matches.visitVarInsn(Opcodes.ILOAD, 2);
+                matches.visitLdcInsn(selector.accessModifier);
+                matches.visitInsn(Opcodes.IAND);
+                matches.visitJumpInsn(Opcodes.IFEQ, noMatch);
+            }
+            if(selector.isStatic != null) {
+                matches.visitVarInsn(Opcodes.ILOAD, 2);
+                matches.visitLdcInsn(Opcodes.ACC_STATIC);
+                matches.visitInsn(Opcodes.IAND);
+                matches.visitJumpInsn(selector.isStatic ? Opcodes.IFEQ : Opcodes.IFNE, noMatch);
+            }
+            if(selector.name != null)
+                generateStringTest(matches, 3, "equals", selector.name, noMatch);
+            if(selector.descriptor != null)
+                generateStringTest(matches, 4, "equals", selector.descriptor, noMatch);
+            if(selector.descriptorPrefix != null)
+                generateStringTest(matches, 4, "startsWith", selector.descriptorPrefix, noMatch);
+            if(selector.descriptorSuffix != null)
+                generateStringTest(matches, 4, "endsWith", selector.descriptorSuffix, noMatch);
+            
+            matches.visitInsn(Opcodes.ICONST_1);
+            matches.visitInsn(Opcodes.IRETURN);
+        }
+        
+        matches.visitLabel(noMatch);
+        matches.visitInsn(Opcodes.ICONST_0);
+        matches.visitInsn(Opcodes.IRETURN);
+        matches.visitMaxs(0, 0);
+        matches.visitEnd();
+        
+        return matches;
+    }
+    
+    private static void generateStringTest(MethodNode method, int local, String testMethodName, String value, Label noMatch) {
+        method.visitVarInsn(Opcodes.ALOAD, local);
+        method.visitLdcInsn(value);
+        String testMethodDescriptor = testMethodName.equals("equals") ? "(Ljava/lang/Object;)Z" : "(Ljava/lang/String;)Z";
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", testMethodName, testMethodDescriptor, false);
+        method.visitJumpInsn(Opcodes.IFEQ, noMatch);
+    }
+}
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class MetaCodeAST extends AbstractAST implements ExpressionAST /*Only pretend*/ {
+    private static final long serialVersionUID = 1L;
+
     public CodeAST body;
 
     public MetaCodeAST(ASMCompiler.Region region, CodeAST body) {
@@ -14,6 +14,8 @@ import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
 
 public class MetaExpressionAST<T> extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
 //    public ASMCompiler compiler;
     public ExpressionAST body;
 //    public Method bodyAsMethod;
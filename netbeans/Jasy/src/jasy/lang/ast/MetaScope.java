@@ -1,5 +1,6 @@
 package jasy.lang.ast;
 
+import java.io.Serializable;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.Set;
@@ -7,7 +8,9 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldNode;
 
-public class MetaScope implements Scope {
+public class MetaScope implements Scope, Serializable {
+    private static final long serialVersionUID = 1L;
+
     private Hashtable<String, TypeAST> variables;
 
     public MetaScope(Hashtable<String, TypeAST> variables) {
@@ -4,10 +4,13 @@ import jasy.lang.ASMCompiler;
 import jasy.lang.ASMCompiler.Region;
 import jasy.lang.ClassResolver;
 import jasy.lang.SingleClassLoader;
+import jasy.lang.TransformationDiagnostics;
+import java.io.ByteArrayOutputStream;
 import jasy.runtime.asm.CommonClassTransformer;
 import jasy.runtime.asm.CompositeTransformer;
 import jasy.runtime.asm.IfAllTransformer;
-import java.io.PrintWriter;
+import java.io.PrintStream;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -18,7 +21,6 @@ import java.util.OptionalInt;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.IntStream;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -26,11 +28,10 @@ import org.objectweb.asm.commons.GeneratorAdapter;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.MethodNode;
-import org.objectweb.asm.util.CheckClassAdapter;
-import org.objectweb.asm.util.Textifier;
-import org.objectweb.asm.util.TraceClassVisitor;
 
 public class MethodAST extends AbstractAST implements MemberAST {
+    private static final long serialVersionUID = 1L;
+
     public boolean isAdd;
     public MethodSelectorAST selector;
     public CodeAST body; // AST generator body
@@ -52,14 +53,24 @@ public class MethodAST extends AbstractAST implements MemberAST {
     @Override
     public void resolve(Scope thisClass, TypeAST expectedResultType, ClassResolver resolver, ClassLoader classLoader, List<jasy.lang.ASMCompiler.Message> errorMessages) {
         selector.resolve(thisClass, expectedResultType, resolver, classLoader, errorMessages);
-        body.resolve(thisClass, expectedResultType, resolver, classLoader, errorMessages);
+        
+        // Meta variables, e.g. of the selected class, are visible within the body as well
+        VariableScope bodyScope = new VariableScope(thisClass);
+        if(selector.parameters != null)
+            selector.parameters.forEach(p -> bodyScope.declare(p.name));
+        if(mp != null)
+            mp.metaScope.getFieldNames().forEach(n -> bodyScope.declare(n));
+        body.resolve(bodyScope, expectedResultType, resolver, classLoader, errorMessages);
     }
 
-    public void populate(ClassResolver classResolver, ClassLoader classLoader, CompositeTransformer<Transformation<ClassNode>> classTransformer, IfAllTransformer<Transformation<MethodNode>> transformer) {
+    public void populate(ClassResolver classResolver, ClassLoader classLoader, TransformationDiagnostics diagnostics, MemberMatcherGenerator matcherGenerator, CompositeTransformer<Transformation<ClassNode>> classTransformer, IfAllTransformer<Transformation<MethodNode>> transformer) {
         if(!isAdd) {
-            selector.populate(transformer);
+            selector.populate(matcherGenerator, transformer);
         } else {
-            java.lang.reflect.Method astGeneratorMethod = createASTGeneratorMethod(classResolver, classLoader);
+            java.lang.reflect.Method astGeneratorMethod = createASTGeneratorMethod(classResolver, classLoader, diagnostics);
+            // The transformer is retained for as long as the class loader, so 
+            // it refers to the class loader only weakly
+            WeakReference<ClassLoader> classLoaderReference = new WeakReference<>(classLoader);
             
             classTransformer.addTransformer(c -> {
                 return () -> {
@@ -82,9 +93,14 @@ public class MethodAST extends AbstractAST implements MemberAST {
                         
                         // Body is not resolved? Necessary?
                         
-                        System.out.println("Synthesized body:");
-                        body.accept(new CodePrinter(System.out));
-                        System.out.println();
+                        if(diagnostics.isTracingFor(c.getTarget().name)) {
+                            ByteArrayOutputStream bodyText = new ByteArrayOutputStream();
+                            PrintStream bodyPrintStream = new PrintStream(bodyText);
+                            bodyPrintStream.println("Synthesized body:");
+                            body.accept(new CodePrinter(bodyPrintStream));
+                            bodyPrintStream.flush();
+                            diagnostics.trace(c.getTarget().name, bodyText.toString());
+                        }
                         
                         // Use the resulting CodeAST in toCode below
                         
@@ -109,7 +125,7 @@ public class MethodAST extends AbstractAST implements MemberAST {
 
                         methodNode.visitCode();
                         generator.start();
-                        toCode(c, body, generator, classResolver, classLoader, parameters, new InsnList() /*Something that generates a default values for non-void returns?*/);
+                        toCode(c, body, generator, classResolver, classLoaderReference.get(), parameters, new InsnList() /*Something that generates a default values for non-void returns?*/);
                         generator.end();
                         methodNode.visitEnd();
 
@@ -131,7 +147,7 @@ public class MethodAST extends AbstractAST implements MemberAST {
         }
     }
 
-    private java.lang.reflect.Method createASTGeneratorMethod(ClassResolver classResolver, ClassLoader classLoader) {
+    private java.lang.reflect.Method createASTGeneratorMethod(ClassResolver classResolver, ClassLoader classLoader, TransformationDiagnostics diagnostics) {
         // 1) Generate code to generate code
         ClassNode metaObjectClassNode = new ClassNode(Opcodes.ASM5);
         
@@ -182,10 +198,7 @@ public class MethodAST extends AbstractAST implements MemberAST {
 //        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                              _MAXS);
         metaObjectClassNode.accept(cw);
         
-        TraceClassVisitor traceClassVisitor = new TraceClassVisitor(null, new Textifier(), new PrintWriter(System.out));
-        new ClassReader(cw.toByteArray()).accept(traceClassVisitor, 0);
-//        metaObjectClassNode.accept(traceClassVisitor);
-        CheckClassAdapter.verify(new ClassReader(cw.toByteArray()), true, new PrintWriter(System.out));
+        diagnostics.check(metaObjectClassNode.name, cw.toByteArray());
         
         SingleClassLoader metaClassLoader = new SingleClassLoader(metaObjectClassNode);
         Class<?> metaObjectClass = metaClassLoader.loadClass();
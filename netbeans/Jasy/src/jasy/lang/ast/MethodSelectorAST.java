@@ -3,12 +3,15 @@ package jasy.lang.ast;
 import jasy.lang.ASMCompiler;
 import jasy.lang.ClassResolver;
 import jasy.runtime.asm.IfAllTransformer;
+import java.io.Serializable;
 import java.util.List;
-import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.Type;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import org.objectweb.asm.tree.MethodNode;
 
-public class MethodSelectorAST {
+public class MethodSelectorAST implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     public Integer accessModifier;
     public Boolean isStatic;
     public TypeAST returnType;
@@ -28,30 +31,9 @@ public class MethodSelectorAST {
         parameters.forEach(pt -> pt.type.resolve(thisClass, expectedResultType, resolver, classLoader, errorMessages));
     }
 
-    public void populate(IfAllTransformer<Transformation<MethodNode>> transformer) {
-        if(accessModifier != null)
-            transformer.addPredicate(m -> (m.getTarget().access & accessModifier) != 0);
-        if(isStatic != null)
-            transformer.addPredicate(m -> (m.getTarget().access & Opcodes.ACC_STATIC) != 0);
-        if(returnType != null)
-            transformer.addPredicate(m -> Type.getType(m.getTarget().desc).getClassName().equals(returnType.getDescriptor()));
-        if(name != null)
-            transformer.addPredicate(m -> m.getTarget().name.equals(name));
-        
-        if(parameters != null) {
-            transformer.addPredicate(m -> {
-                Type[] argumentTypes = Type.getArgumentTypes(m.getTarget().desc);
-                
-                if(argumentTypes.length != parameters.size())
-                    return false;
-                
-                for(int i = 0; i < parameters.size(); i++) {
-                    if(!argumentTypes[i].getClassName().equals(parameters.get(0).type.getDescriptor()))
-                        return false;
-                }
-                
-                return true;
-            });
-        }
+    public void populate(MemberMatcherGenerator matcherGenerator, IfAllTransformer<Transformation<MethodNode>> transformer) {
+        List<TypeAST> parameterTypes = parameters != null ? parameters.stream().map(p -> p.type).collect(Collectors.toList()) : null;
+        Predicate<MethodNode> methodFilter = matcherGenerator.addMethodSelector(accessModifier, isStatic, returnType, name, parameterTypes);
+        transformer.addPredicate(m -> methodFilter.test(m.getTarget()));
     }
 }
@@ -2,7 +2,9 @@ package jasy.lang.ast;
 
 import jasy.lang.ASMCompiler;
 import jasy.lang.ASMCompiler.Region;
+import jasy.lang.ClassPreFilter;
 import jasy.lang.ClassResolver;
+import jasy.lang.TransformationDiagnostics;
 import jasy.runtime.asm.FirstByIndexTransformer;
 import jasy.runtime.asm.IfAllTransformer;
 import java.util.List;
@@ -10,6 +12,8 @@ import java.util.function.Function;
 import org.objectweb.asm.tree.ClassNode;
 
 public class ModuleAST extends AbstractAST {
+    private static final long serialVersionUID = 1L;
+
     public List<ClassAST> classes;
 
     public ModuleAST(Region region, List<ClassAST> classes) {
@@ -22,18 +26,34 @@ public class ModuleAST extends AbstractAST {
         classes.forEach(c -> c.resolve(thisClass, expectedResultType, resolver, classLoader, errorMessages));
     }
 
+    /**
+     * Must be called after resolve, since the filter is based on resolved 
+     * class names.
+     */
+    public ClassPreFilter toPreFilter() {
+        ClassPreFilter preFilter = new ClassPreFilter();
+        
+        classes.forEach(c -> c.populate(preFilter));
+        
+        return preFilter;
+    }
+
     public Function<Transformation<ClassNode>, Runnable> toClassTransformer(ClassResolver classResolver, ClassLoader classLoader) {
-        FirstByIndexTransformer<Transformation<ClassNode>, String> transformer = new FirstByIndexTransformer<>(c -> c.getTarget().name);
+        return toClassTransformer(classResolver, classLoader, TransformationDiagnostics.OFF);
+    }
+
+    public Function<Transformation<ClassNode>, Runnable> toClassTransformer(ClassResolver classResolver, ClassLoader classLoader, TransformationDiagnostics diagnostics) {
+        FirstByIndexTransformer<Transformation<ClassNode>> transformer = new FirstByIndexTransformer<>(c -> c.getAppliedTransformers());
         
-        populate(classResolver, classLoader, transformer);
+        populate(classResolver, classLoader, diagnostics, transformer);
         
         return transformer;
     }
     
-    public void populate(ClassResolver classResolver, ClassLoader classLoader, FirstByIndexTransformer<Transformation<ClassNode>, String> classesTransformer) {
+    public void populate(ClassResolver classResolver, ClassLoader classLoader, TransformationDiagnostics diagnostics, FirstByIndexTransformer<Transformation<ClassNode>> classesTransformer) {
         classes.forEach(c -> {
             IfAllTransformer<Transformation<ClassNode>> classTransformer = new IfAllTransformer<>();
-            c.populate(classResolver, classLoader, classTransformer);
+            c.populate(classResolver, classLoader, diagnostics, classTransformer);
             classesTransformer.addTransformer(classTransformer);
         });
     }
@@ -2,6 +2,8 @@ package jasy.lang.ast;
 
 import jasy.lang.ASMCompiler;
 import jasy.lang.ASMCompiler.Region;
+import jasy.lang.AmbiguousClassNameException;
+import jasy.lang.ClassResolutionCache;
 import jasy.lang.ClassResolver;
 import java.lang.reflect.Field;
 import java.lang.reflect.TypeVariable;
@@ -15,6 +17,8 @@ import javassist.bytecode.SignatureAttribute.TypeParameter;
 import org.objectweb.asm.Type;
 
 public class NameTypeAST extends AbstractAST implements TypeAST {
+    private static final long serialVersionUID = 1L;
+
     public boolean isArray;
     public String name;
     public String descriptor;
@@ -102,7 +106,7 @@ public class NameTypeAST extends AbstractAST implements TypeAST {
             default:
 //                return Class.forName(name);
 //                return classLoader.loadClass(name);
-                return Class.forName(name, true, classLoader);
+                return ClassResolutionCache.forName(name, classLoader);
         }
     }
 
@@ -126,7 +130,7 @@ public class NameTypeAST extends AbstractAST implements TypeAST {
 //                c = Class.forName(descriptor);
 //                c = classLoader.loadClass(descriptor);
 //                c = Class.forName(descriptor, true, classLoader);
-            c = Class.forName(descriptor, true, classLoader);
+            c = ClassResolutionCache.forName(descriptor, classLoader);
         } else {
             switch(name) {
                 case "boolean": c = boolean.class; break;
@@ -141,7 +145,7 @@ public class NameTypeAST extends AbstractAST implements TypeAST {
 //                    default: c = classLoader.loadClass(name);
 //                    default: c = Class.forName(name, true, classLoader);
 //                    default: c = Class.forName(name, true, classLoader);
-                default: c = Class.forName(name, true, classLoader);
+                default: c = ClassResolutionCache.forName(name, classLoader);
             }
 
 //                c = Class.forName(name);
@@ -193,6 +197,8 @@ public class NameTypeAST extends AbstractAST implements TypeAST {
 //            descriptor = getDescriptorFromName(name);
         } catch (ClassNotFoundException ex) {
             errorMessages.add(new ASMCompiler.Message(getRegion(), "Could not resolve type " + name + "."));
+        } catch (AmbiguousClassNameException ex) {
+            errorMessages.add(new ASMCompiler.Message(getRegion(), ex.getMessage()));
         }
     }
     
@@ -6,6 +6,8 @@ import java.util.Collections;
 import java.util.List;
 
 public class NewAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public TypeAST c;
     public List<ExpressionAST> arguments;
 
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class NullAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public NullAST(ASMCompiler.Region region) {
         super(region);
     }
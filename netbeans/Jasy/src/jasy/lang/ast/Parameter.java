@@ -1,6 +1,10 @@
 package jasy.lang.ast;
 
-public class Parameter {
+import java.io.Serializable;
+
+public class Parameter implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     public String name;
     public TypeAST type;
 
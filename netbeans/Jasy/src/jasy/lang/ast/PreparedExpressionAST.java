@@ -6,10 +6,12 @@ import org.objectweb.asm.tree.InsnList;
 public interface PreparedExpressionAST extends PreparedAST {
     TypeAST resultType();
 
-    default boolean canBeArgumentFor(ClassLoader classLoader, Class<?> parameterType) {
+    /**
+     * @return The type, which decides the parameters the expression can be an
+     * argument for; or null if it can be an argument for any reference type.
+     */
+    default Class<?> getArgumentType(ClassLoader classLoader) {
         TypeAST resultType = resultType();
-        Class<?> argumentType = ((NameTypeAST)resultType).getType(classLoader);
-        
-        return parameterType.isAssignableFrom(argumentType);
+        return ((NameTypeAST)resultType).getType(classLoader);
     }
 }
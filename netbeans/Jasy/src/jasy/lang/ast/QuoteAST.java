@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class QuoteAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public CodeAST ast;
 
     public QuoteAST(ASMCompiler.Region region, CodeAST ast) {
@@ -6,6 +6,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class ReturnAST extends AbstractAST implements CodeAST {
+    private static final long serialVersionUID = 1L;
+
     public ExpressionAST expression;
 
     public ReturnAST(Region region, ExpressionAST expression) {
@@ -2,4 +2,11 @@ package jasy.lang.ast;
 
 public interface Scope {
     TypeAST getFieldType(ClassLoader classLoader, String fieldName);
+    /**
+     * @return Whether name is a parameter or variable in this scope, which, 
+     * like a field, shadows a class of the same name.
+     */
+    default boolean isVariable(String name) {
+        return false;
+    }
 }
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class ThisAST extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     private ThisTypeAST resultType;
 
     public ThisAST(ASMCompiler.Region region) {
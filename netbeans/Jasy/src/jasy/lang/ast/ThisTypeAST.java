@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class ThisTypeAST extends AbstractAST implements TypeAST {
+    private static final long serialVersionUID = 1L;
+
     private Scope classInfo;
 
     public ThisTypeAST(jasy.lang.ASMCompiler.Region region) {
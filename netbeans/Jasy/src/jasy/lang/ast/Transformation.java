@@ -1,6 +1,7 @@
 package jasy.lang.ast;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Hashtable;
 import java.util.List;
@@ -10,12 +11,22 @@ public class Transformation<T> {
     private Transformation parent;
     private T target;
     private Hashtable<String, Object> variable;
+    private BitSet appliedTransformers;
 
     public Transformation(T target) {
         this.target = target;
         this.variable = new Hashtable<String, Object>();
     }
 
+    /**
+     * @param appliedTransformers The transformers, by index, which have been
+     * applied to target so far.
+     */
+    public Transformation(T target, BitSet appliedTransformers) {
+        this(target);
+        this.appliedTransformers = appliedTransformers;
+    }
+
 //    public Transformation(T target, Map<String, Object> variables) {
 //        this.target = target;
 //        this.variables = variables;
@@ -24,6 +35,12 @@ public class Transformation<T> {
     public T getTarget() {
         return target;
     }
+
+    public BitSet getAppliedTransformers() {
+        if(appliedTransformers == null)
+            appliedTransformers = new BitSet();
+        return appliedTransformers;
+    }
     
     public Object getVariableValue(String name) {
         Object v = variable.get(name);
@@ -1,6 +1,8 @@
 package jasy.lang.ast;
 
 public interface TypeAST extends AST {
+    long serialVersionUID = 1L;
+
     /**
      * 
      * @param thisClassName Separated by '/'.
@@ -5,6 +5,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class UnaryExpression extends AbstractAST implements ExpressionAST {
+    private static final long serialVersionUID = 1L;
+
     public static final int OPERATOR_SIGN_POS = 0;
     public static final int OPERATOR_SIGN_NEG = 1;
     public static final int OPERATOR_BIN_COMP = 2;
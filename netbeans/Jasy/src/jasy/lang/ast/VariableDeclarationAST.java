@@ -6,6 +6,8 @@ import jasy.lang.ClassResolver;
 import java.util.List;
 
 public class VariableDeclarationAST extends AbstractAST implements CodeAST {
+    private static final long serialVersionUID = 1L;
+
     public String name;
     public TypeAST type;
     public ExpressionAST value;
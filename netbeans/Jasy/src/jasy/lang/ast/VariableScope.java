@@ -0,0 +1,34 @@
+package jasy.lang.ast;
+
+import java.util.HashSet;
+
+/**
+ * The names of the parameters and variables, which are declared while code is
+ * resolved, on top of an enclosing scope. Only the names are known, since
+ * types are not resolved until code is prepared.
+ */
+public class VariableScope implements Scope {
+    private final Scope outer;
+    private final HashSet<String> names = new HashSet<>();
+
+    /**
+     * @param outer The enclosing scope; or null if there is none.
+     */
+    public VariableScope(Scope outer) {
+        this.outer = outer;
+    }
+
+    public void declare(String name) {
+        names.add(name);
+    }
+
+    @Override
+    public TypeAST getFieldType(ClassLoader classLoader, String fieldName) {
+        return outer != null ? outer.getFieldType(classLoader, fieldName) : null;
+    }
+
+    @Override
+    public boolean isVariable(String name) {
+        return names.contains(name) || (outer != null && outer.isVariable(name));
+    }
+}
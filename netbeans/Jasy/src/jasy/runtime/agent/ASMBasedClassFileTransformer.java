@@ -1,6 +1,8 @@
 package jasy.runtime.agent;
 
+import jasy.lang.ClassPreFilter;
 import jasy.lang.ExhaustiveClassTransformer;
+import jasy.lang.TransformedClassCache;
 import jasy.runtime.asm.ClassAction;
 import jasy.runtime.asm.ClassTransformer;
 import java.lang.instrument.ClassFileTransformer;
@@ -12,9 +14,32 @@ import org.objectweb.asm.tree.ClassNode;
 
 public class ASMBasedClassFileTransformer implements ClassFileTransformer {
     private ExhaustiveClassTransformer eTransformer;
+    private ClassPreFilter preFilter;
+    private TransformedClassCache cache;
 
     public ASMBasedClassFileTransformer(ClassTransformer transformer) {
+        this(transformer, null);
+    }
+
+    public ASMBasedClassFileTransformer(ClassTransformer transformer, ClassPreFilter preFilter) {
         this.eTransformer = new ExhaustiveClassTransformer(transformer);
+        this.preFilter = preFilter;
+    }
+
+    /**
+     * @param cache Cache of transformed classes, which must have been opened
+     * for the module transformer originates from; or null if transformed 
+     * classes are not cached.
+     */
+    public ASMBasedClassFileTransformer(ClassTransformer transformer, ClassPreFilter preFilter, TransformedClassCache cache) {
+        this(transformer, preFilter);
+        this.cache = cache;
+    }
+
+    public ASMBasedClassFileTransformer(ExhaustiveClassTransformer eTransformer, ClassPreFilter preFilter, TransformedClassCache cache) {
+        this.eTransformer = eTransformer;
+        this.preFilter = preFilter;
+        this.cache = cache;
     }
     
     @Override
@@ -38,6 +63,19 @@ public class ASMBasedClassFileTransformer implements ClassFileTransformer {
 //        
 //        return classfileBuffer;
         
-        return eTransformer.transform(classfileBuffer);
+        if(preFilter != null && !preFilter.mayMatch(classfileBuffer))
+            return null;
+        
+        byte[] cacheKey = cache != null ? TransformedClassCache.getKey(classfileBuffer) : null;
+        byte[] newClassfileBuffer = cache != null ? cache.get(cacheKey, classfileBuffer) : null;
+        
+        if(newClassfileBuffer == null) {
+            newClassfileBuffer = eTransformer.transform(classfileBuffer);
+            
+            if(cache != null)
+                cache.put(cacheKey, classfileBuffer, newClassfileBuffer);
+        }
+        
+        return newClassfileBuffer != classfileBuffer ? newClassfileBuffer : null;
     }
 }
@@ -3,39 +3,155 @@ package jasy.runtime.agent;
 import jasy.lang.ASMCompiler;
 import jasy.lang.CommonClassMap;
 import jasy.lang.CommonClassResolver;
+import jasy.lang.ModulePlan;
+import jasy.lang.StalePlanException;
 import jasy.lang.ast.ModuleAST;
-import jasy.runtime.asm.ClassTransformer;
-import java.io.FileInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.instrument.Instrumentation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class Agent {
+    /**
+     * The directory of the cache of transformed classes; if not set or empty, 
+     * transformed classes are not cached.
+     */
+    public static final String CACHE_PROPERTY = "jasy.agent.cache";
+    
+    /**
+     * A module along with the source it was loaded from.
+     */
+    static class LoadedModule {
+        final String source;
+        final ModuleAST module;
+
+        LoadedModule(String source, ModuleAST module) {
+            this.source = source;
+            this.module = module;
+        }
+    }
+    
     public static void premain(String args, Instrumentation inst) throws IOException {
+        start(args, inst);
+    }
+    
+    /**
+     * Installs the module when the agent is attached to a running JVM. The 
+     * classes, which are already loaded, are retransformed in the background.
+     */
+    public static void agentmain(String args, Instrumentation inst) throws IOException {
+        ModuleReloader reloader = start(args, inst);
+        
+        if(reloader != null) {
+            Thread thread = new Thread(() -> reloader.retransformLoadedClasses(), "Jasy retransformation");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+    
+    /**
+     * @return The reloader of the installed module; or null if errors were
+     * found in the module.
+     */
+    private static ModuleReloader start(String args, Instrumentation inst) throws IOException {
         String sourceCodeFilePath = args;
         System.out.println(sourceCodeFilePath);
-        InputStream sourceCode = new FileInputStream(sourceCodeFilePath);
-        ArrayList<ASMCompiler.Message> errorMessages = new ArrayList<ASMCompiler.Message>();
+        long startupStart = System.currentTimeMillis();
+        
+        // The class map is loaded in the background while the module is 
+        // loaded; only resolution depends on both
+        CompletableFuture<CommonClassResolver> classResolverCreation = CompletableFuture.supplyAsync(() -> {
+            long start = System.currentTimeMillis();
+            CommonClassResolver classResolver = new CommonClassResolver(CommonClassMap.createDefault());
+            classResolver.importPackage("java.lang");
+            long end = System.currentTimeMillis();
+            System.out.println("Default class map loading: " + (end - start) + "ms");
+            return classResolver;
+        }, r -> {
+            Thread thread = new Thread(r, "Jasy class map loading");
+            thread.setDaemon(true);
+            thread.start();
+        });
+        
         long start = System.currentTimeMillis();
-//        ClassResolver classResolver = new ClassResolver(new ClassMap());
-        CommonClassResolver classResolver = new CommonClassResolver(CommonClassMap.createDefault());
+        LoadedModule loadedModule = loadModule(sourceCodeFilePath);
+        ModuleAST module = loadedModule.module;
         long end = System.currentTimeMillis();
-        System.out.println("Default class map loading: " + (end - start) + "ms");
-        classResolver.importPackage("java.lang");
-        ASMCompiler compiler = new ASMCompiler(classResolver);
-        ModuleAST module = compiler.compile(sourceCode);
-//        ClassTransformer classTransformer = compiler.compile(sourceCode, errorMessages);
-        // Parsing and ClassResolver creation can be performed in parallel
+        System.out.println("Module loading: " + (end - start) + "ms");
         
-        module.resolve(null, null, classResolver, ClassLoader.getSystemClassLoader(), errorMessages);
+        start = System.currentTimeMillis();
+        CommonClassResolver classResolver = classResolverCreation.join();
+        end = System.currentTimeMillis();
+        System.out.println("Waiting for default class map: " + (end - start) + "ms");
         
+        start = System.currentTimeMillis();
+        ArrayList<ASMCompiler.Message> errorMessages = new ArrayList<ASMCompiler.Message>();
+        ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+        module.resolve(null, null, classResolver, classLoader, errorMessages);
+        end = System.currentTimeMillis();
+        System.out.println("Module resolution: " + (end - start) + "ms");
+        
+        ModuleReloader reloader = null;
         if(errorMessages.isEmpty()) {
-//            ClassTransformer classTransformer = module.toClassTransformer();
-//            inst.addTransformer(new ASMBasedClassFileTransformer(classTransformer));
+            start = System.currentTimeMillis();
+            reloader = new ModuleReloader(inst, Paths.get(sourceCodeFilePath), classResolver, classLoader, getCacheDirectory());
+            reloader.install(module, loadedModule.source);
+            reloader.flushCacheOnShutdown();
+            end = System.currentTimeMillis();
+            System.out.println("Transformer registration: " + (end - start) + "ms");
+            
+            if(Boolean.getBoolean(ModuleReloader.WATCH_PROPERTY))
+                reloader.watch();
         } else {
             System.out.println("The following errors were found for '" + sourceCodeFilePath + "':");
             errorMessages.forEach(m -> System.out.println(m));
         }
+        
+        long startupEnd = System.currentTimeMillis();
+        System.out.println("Agent startup: " + (startupEnd - startupStart) + "ms");
+        
+        return reloader;
+    }
+    
+    /**
+     * @return The directory of the cache of transformed classes; or null if 
+     * transformed classes are not cached.
+     */
+    private static Path getCacheDirectory() {
+        // Caching is opt-in, since the cache is never cleaned up
+        String cacheDirectory = System.getProperty(CACHE_PROPERTY, "");
+        return !cacheDirectory.isEmpty() ? Paths.get(cacheDirectory) : null;
+    }
+    
+    static LoadedModule loadModule(String sourceCodeFilePath) throws IOException {
+        // The file is read once, such that the source always matches the module
+        byte[] moduleFileBytes = Files.readAllBytes(Paths.get(sourceCodeFilePath));
+        
+        // Plans, written by ModulePlan, are loaded without parsing
+        if(ModulePlan.isPlan(moduleFileBytes)) {
+            try {
+                ModulePlan plan = ModulePlan.read(moduleFileBytes, sourceCodeFilePath);
+                return new LoadedModule(plan.getSource(), plan.getModule());
+            } catch (StalePlanException ex) {
+                Logger.getLogger(Agent.class.getName()).log(Level.WARNING, "{0} Its source is parsed instead.", ex.getMessage());
+                return compileModule(ex.getSource());
+            }
+        }
+        
+        return compileModule(new String(moduleFileBytes, StandardCharsets.UTF_8));
+    }
+    
+    private static LoadedModule compileModule(String source) throws IOException {
+        // The class resolver is not used before the module is resolved
+        ASMCompiler compiler = new ASMCompiler(null);
+        ModuleAST module = compiler.compile(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        return new LoadedModule(source, module);
     }
 }
@@ -1,11 +1,12 @@
 package jasy.runtime.agent;
 
 import jasy.runtime.javassist.ClassAction;
+import jasy.runtime.javassist.ClassPoolManager;
 import jasy.runtime.javassist.ClassTransformer;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.ProtectionDomain;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -15,20 +16,32 @@ import javassist.CtClass;
 
 public class JavassistBasedClassFileTransformer implements java.lang.instrument.ClassFileTransformer {
     private ClassTransformer transformer;
+    private ClassPoolManager classPoolManager;
 
     public JavassistBasedClassFileTransformer(ClassTransformer transformer) {
+        this(transformer, new ClassPoolManager(ClassPool.getDefault()));
+    }
+
+    public JavassistBasedClassFileTransformer(ClassTransformer transformer, ClassPoolManager classPoolManager) {
         this.transformer = transformer;
+        this.classPoolManager = classPoolManager;
+    }
+
+    public ClassPoolManager getClassPoolManager() {
+        return classPoolManager;
     }
     
     @Override
     public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+        CtClass ctClass = null;
         try {
             System.out.println("ClassFileClassTransformer transforming...");
-            CtClass ctClass = ClassPool.getDefault().makeClass(new ByteArrayInputStream(classfileBuffer));
+            ctClass = classPoolManager.makeClass(classfileBuffer);
             
+            BitSet appliedTransformers = new BitSet();
             boolean wasChanged = false;
             while(true) {
-                ClassAction action = transformer.resolve(ctClass);
+                ClassAction action = transformer.resolve(ctClass, appliedTransformers);
                 if(action == null)
                     break;
                 wasChanged = true;
@@ -36,10 +49,15 @@ public class JavassistBasedClassFileTransformer implements java.lang.instrument.
             }
             if(wasChanged) {
                 ctClass.rebuildClassFile();
-                return ctClass.toBytecode();
+                CtClass transformedClass = ctClass;
+                ctClass = null;
+                return classPoolManager.toBytecode(transformedClass);
             }
         } catch (IOException | RuntimeException | CannotCompileException ex) {
             Logger.getLogger(JavassistBasedClassFileTransformer.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            if(ctClass != null)
+                classPoolManager.discard(ctClass);
         }
         
         return classfileBuffer;
@@ -0,0 +1,362 @@
+package jasy.runtime.agent;
+
+import jasy.lang.ASMCompiler;
+import jasy.lang.ClassPreFilter;
+import jasy.lang.ClassResolver;
+import jasy.lang.ExhaustiveClassTransformer;
+import jasy.lang.TransformedClassCache;
+import jasy.lang.ast.ModuleAST;
+import jasy.lang.ast.Transformation;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Keeps the transformer of a module registered and replaces it when the
+ * module is reloaded. A single transformer is registered, which delegates to
+ * the transformer of the installed module; thus, replacing a module is a
+ * single atomic swap, and no class is transformed by both the old and the new
+ * module. Upon replacement, the already loaded classes, which either were
+ * transformed by the old module or are selected by the new module, are
+ * retransformed in batches; other classes are left as they are. Each batch is
+ * retransformed at a separate safepoint, such that the application is not
+ * paused for all affected classes at once.
+ */
+public class ModuleReloader {
+    public static final String WATCH_PROPERTY = "jasy.agent.watch";
+    private static final int RETRANSFORM_BATCH_SIZE = 100;
+    private static final long WATCH_DELAY_MILLIS = 100;
+    private static final int REPORTED_FAILURE_COUNT = 10;
+
+    private final Instrumentation inst;
+    private final Path sourceCodeFilePath;
+    private final ClassResolver classResolver;
+    private final ClassLoader classLoader;
+    private final Path cacheDirectory;
+    // Not a method reference, since ClassFileTransformer has no abstract methods as of Java 9
+    private final ClassFileTransformer delegatingTransformer = new ClassFileTransformer() {
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+            return ModuleReloader.this.transform(loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+        }
+    };
+    private volatile Installation installation;
+    private volatile TransformedClassCache cache;
+
+    private static class Installation {
+        private final ClassFileTransformer transformer;
+        private final ClassPreFilter preFilter;
+        // The names of the classes the transformer has changed, per class loader
+        private final Map<ClassLoader, Set<String>> transformedClassNames = Collections.synchronizedMap(new WeakHashMap<>());
+        private final Set<String> transformedBootstrapClassNames = ConcurrentHashMap.newKeySet();
+
+        private Installation(ClassFileTransformer transformer, ClassPreFilter preFilter) {
+            this.transformer = transformer;
+            this.preFilter = preFilter;
+        }
+
+        private Set<String> getTransformedClassNames(ClassLoader loader) {
+            if(loader == null)
+                return transformedBootstrapClassNames;
+
+            synchronized(transformedClassNames) {
+                return transformedClassNames.computeIfAbsent(loader, l -> ConcurrentHashMap.newKeySet());
+            }
+        }
+
+        private boolean hasTransformed(Class<?> c) {
+            ClassLoader loader = c.getClassLoader();
+            Set<String> classNames = loader != null ? transformedClassNames.get(loader) : transformedBootstrapClassNames;
+            return classNames != null && classNames.contains(c.getName().replace('.', '/'));
+        }
+    }
+
+    /**
+     * @param cacheDirectory The directory of the cache of transformed classes;
+     * or null if transformed classes are not cached.
+     */
+    public ModuleReloader(Instrumentation inst, Path sourceCodeFilePath, ClassResolver classResolver, ClassLoader classLoader, Path cacheDirectory) {
+        this.inst = inst;
+        this.sourceCodeFilePath = sourceCodeFilePath;
+        this.classResolver = classResolver;
+        this.classLoader = classLoader;
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Registers the transformer of module in place of the current one. On the
+     * first install, no classes are retransformed.
+     * @param module A module, which has been resolved without errors.
+     * @param source The source of module, which its cached classes are kept
+     * by.
+     */
+    public synchronized void install(ModuleAST module, String source) {
+        Function<Transformation<ClassNode>, Runnable> classTransformer = module.toClassTransformer(classResolver, classLoader);
+        ClassPreFilter newPreFilter = module.toPreFilter();
+        TransformedClassCache oldCache = cache;
+        TransformedClassCache newCache = openCache(source);
+        Installation oldInstallation = installation;
+        Installation newInstallation = new Installation(new ASMBasedClassFileTransformer(new ExhaustiveClassTransformer(classTransformer), newPreFilter, newCache), newPreFilter);
+
+        installation = newInstallation;
+        cache = newCache;
+
+        if(oldCache != null)
+            flush(oldCache);
+
+        if(oldInstallation == null)
+            inst.addTransformer(delegatingTransformer, true);
+        else
+            retransform(oldInstallation, newPreFilter);
+    }
+
+    private byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+        Installation currentInstallation = installation;
+        byte[] newClassfileBuffer = currentInstallation.transformer.transform(loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+
+        if(newClassfileBuffer != null && className != null)
+            currentInstallation.getTransformedClassNames(loader).add(className);
+
+        return newClassfileBuffer;
+    }
+
+    /**
+     * Loads, resolves, and installs the module again. If errors are found, they
+     * are reported and the current transformer is kept.
+     * @return Whether the module was installed.
+     */
+    public synchronized boolean reload() throws IOException {
+        long start = System.currentTimeMillis();
+        Agent.LoadedModule loadedModule = Agent.loadModule(sourceCodeFilePath.toString());
+        ModuleAST module = loadedModule.module;
+        ArrayList<ASMCompiler.Message> errorMessages = new ArrayList<>();
+        module.resolve(null, null, classResolver, classLoader, errorMessages);
+
+        if(!errorMessages.isEmpty()) {
+            System.out.println("The following errors were found for '" + sourceCodeFilePath + "'; the module was not reloaded:");
+            errorMessages.forEach(m -> System.out.println(m));
+            return false;
+        }
+
+        install(module, loadedModule.source);
+        long end = System.currentTimeMillis();
+        System.out.println("Reloaded '" + sourceCodeFilePath + "' in " + (end - start) + "ms");
+
+        return true;
+    }
+
+    private TransformedClassCache openCache(String source) {
+        if(cacheDirectory == null)
+            return null;
+
+        try {
+            return TransformedClassCache.open(cacheDirectory, source);
+        } catch (IOException ex) {
+            Logger.getLogger(ModuleReloader.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+
+    private static void flush(TransformedClassCache cache) {
+        try {
+            cache.flush();
+        } catch (IOException ex) {
+            Logger.getLogger(ModuleReloader.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Flushes the cache of the installed module when the JVM shuts down.
+     */
+    public void flushCacheOnShutdown() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            TransformedClassCache currentCache = cache;
+            if(currentCache != null)
+                flush(currentCache);
+        }, "Jasy cache flush"));
+    }
+
+    /**
+     * Retransforms the already loaded classes, which the installed module may
+     * match. This is used when the agent is attached to a running JVM. The
+     * loaded classes are walked without holding the lock of the reloader, such
+     * that reloads are not blocked meanwhile; a module installed in the
+     * meantime retransforms the classes it selects itself.
+     */
+    public void retransformLoadedClasses() {
+        Installation currentInstallation;
+        synchronized(this) {
+            currentInstallation = installation;
+        }
+        retransform(null, currentInstallation.preFilter);
+    }
+
+    /**
+     * @param oldInstallation The installation of the replaced module; or null
+     * if no module was replaced.
+     */
+    private void retransform(Installation oldInstallation, ClassPreFilter newPreFilter) {
+        if(!inst.isRetransformClassesSupported()) {
+            System.out.println("Retransformation is not supported; only classes loaded from now on are affected by the module");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Class<?>[] loadedClasses = inst.getAllLoadedClasses();
+        ArrayList<Class<?>> affectedClasses = new ArrayList<>();
+
+        for(Class<?> c: loadedClasses) {
+            if(!inst.isModifiableClass(c) || c.isArray() || c.isPrimitive())
+                continue;
+
+            if((oldInstallation != null && oldInstallation.hasTransformed(c)) || isSelected(c, newPreFilter))
+                affectedClasses.add(c);
+        }
+
+        long end = System.currentTimeMillis();
+        System.out.println("Found " + affectedClasses.size() + " of " + loadedClasses.length + " loaded classes to retransform in " + (end - start) + "ms");
+
+        start = System.currentTimeMillis();
+        int retransformedCount = 0;
+        ArrayList<String> failures = new ArrayList<>();
+        for(int i = 0; i < affectedClasses.size(); i += RETRANSFORM_BATCH_SIZE) {
+            List<Class<?>> batch = affectedClasses.subList(i, Math.min(i + RETRANSFORM_BATCH_SIZE, affectedClasses.size()));
+            retransformedCount += retransform(batch, failures);
+        }
+        end = System.currentTimeMillis();
+        System.out.println("Retransformed " + retransformedCount + " classes in " + (end - start) + "ms");
+
+        if(!failures.isEmpty()) {
+            System.out.println("Could not retransform " + failures.size() + " classes, e.g.:");
+            failures.stream().limit(REPORTED_FAILURE_COUNT).forEach(f -> System.out.println("    " + f));
+        }
+    }
+
+    private int retransform(List<Class<?>> classes, List<String> failures) {
+        try {
+            inst.retransformClasses(classes.toArray(new Class<?>[classes.size()]));
+            return classes.size();
+        } catch (UnmodifiableClassException | RuntimeException | LinkageError ex) {
+            // A single failing class fails the whole batch; thus, each class is retried on its own
+            if(classes.size() == 1) {
+                failures.add(classes.get(0).getName() + ": " + ex);
+                return 0;
+            }
+
+            int retransformedCount = 0;
+            for(Class<?> c: classes)
+                retransformedCount += retransform(Arrays.asList(c), failures);
+            return retransformedCount;
+        }
+    }
+
+    /**
+     * Tests whether the class selectors of a module select c. Only the class
+     * files of classes, which a selector without a class name may match, are
+     * read.
+     */
+    private static boolean isSelected(Class<?> c, ClassPreFilter preFilter) {
+        if(preFilter.matchesAll())
+            return true;
+
+        if(!preFilter.mayMatchName(c.getName().replace('.', '/')))
+            return false;
+
+        byte[] classBytes = readClassBytes(c);
+
+        // Classes without class files, e.g. lambda classes, are never transformed
+        return classBytes != null && preFilter.mayMatch(classBytes);
+    }
+
+    private static byte[] readClassBytes(Class<?> c) {
+        String resourceName = c.getName().replace('.', '/') + ".class";
+        ClassLoader loader = c.getClassLoader();
+
+        try(InputStream classStream = loader != null ? loader.getResourceAsStream(resourceName) : ClassLoader.getSystemResourceAsStream(resourceName)) {
+            if(classStream == null)
+                return null;
+
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while((length = classStream.read(buffer)) != -1)
+                classBytes.write(buffer, 0, length);
+            return classBytes.toByteArray();
+        } catch (IOException ex) {
+            Logger.getLogger(ModuleReloader.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Starts a daemon thread, which reloads the module whenever its file is
+     * modified.
+     */
+    public void watch() throws IOException {
+        Path file = sourceCodeFilePath.toAbsolutePath();
+        Path directory = file.getParent();
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread thread = new Thread(() -> {
+            try {
+                while(true) {
+                    WatchKey key = watchService.take();
+                    boolean modified = false;
+
+                    for(WatchEvent<?> event: key.pollEvents()) {
+                        if(event.context() instanceof Path && directory.resolve((Path)event.context()).equals(file))
+                            modified = true;
+                    }
+
+                    key.reset();
+
+                    if(modified) {
+                        // A single save often causes several events; they are all covered by one reload
+                        Thread.sleep(WATCH_DELAY_MILLIS);
+                        WatchKey pendingKey;
+                        while((pendingKey = watchService.poll()) != null) {
+                            pendingKey.pollEvents();
+                            pendingKey.reset();
+                        }
+
+                        try {
+                            reload();
+                        } catch (IOException | RuntimeException ex) {
+                            Logger.getLogger(ModuleReloader.class.getName()).log(Level.SEVERE, null, ex);
+                        }
+                    }
+                }
+            } catch (InterruptedException ex) {
+                // Stop watching
+            }
+        }, "Jasy module watcher");
+        thread.setDaemon(true);
+        thread.start();
+
+        System.out.println("Watching '" + file + "' for changes");
+    }
+}
@@ -1,7 +1,17 @@
 package jasy.runtime.asm;
 
+import java.util.BitSet;
 import org.objectweb.asm.tree.ClassNode;
 
 public interface ClassTransformer {
     ClassAction resolve(ClassNode classNode);
+
+    /**
+     * @param appliedTransformers The transformers, by index, which have been
+     * applied to the class so far; it lives as long as the transformation of
+     * the class and is only used by composite transformers.
+     */
+    default ClassAction resolve(ClassNode classNode, BitSet appliedTransformers) {
+        return resolve(classNode);
+    }
 }
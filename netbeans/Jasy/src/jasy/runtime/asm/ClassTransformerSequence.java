@@ -1,15 +1,16 @@
 package jasy.runtime.asm;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Hashtable;
-import java.util.List;
-import java.util.Optional;
-import javassist.CtClass;
+import java.util.BitSet;
 import org.objectweb.asm.tree.ClassNode;
 
+/**
+ * Applies the first of its transformers, which has not yet been applied to the
+ * class and which can be applied. Which transformers have been applied is only
+ * known within a single transformation of a class; when resolved without the
+ * applied transformers, none are considered applied.
+ */
 public class ClassTransformerSequence implements ClassTransformer {
-    private Hashtable<String, HashSet<ClassTransformer>> classToAppliedTransformersMap = new Hashtable<>();
     private ArrayList<ClassTransformer> transformers = new ArrayList<>();
     
     public void addTransformer(ClassTransformer transformer) {
@@ -18,32 +19,21 @@ public class ClassTransformerSequence implements ClassTransformer {
 
     @Override
     public ClassAction resolve(ClassNode classNode) {
-        for(ClassTransformer transformer: transformers) {
-            HashSet<ClassTransformer> appliedTransformers = classToAppliedTransformersMap.get(classNode.name);
-            
-            if(appliedTransformers == null) {
-                appliedTransformers = new HashSet<>();
-                classToAppliedTransformersMap.put(classNode.name, appliedTransformers);
-            }
-            
-            if(!appliedTransformers.contains(transformer)) {
-//                System.out.println("appliedTransformers=" + appliedTransformers);
-//                System.out.println("Hasn't applied transformer " + transformer);
-                ClassAction a = transformer.resolve(classNode);
+        return resolve(classNode, new BitSet());
+    }
+
+    @Override
+    public ClassAction resolve(ClassNode classNode, BitSet appliedTransformers) {
+        for(int i = 0; i < transformers.size(); i++) {
+            if(!appliedTransformers.get(i)) {
+                ClassAction a = transformers.get(i).resolve(classNode);
                 if(a != null) {
-                    appliedTransformers.add(transformer);
+                    appliedTransformers.set(i);
                     return a;
                 }
-            } else {
-//                System.out.println("Has already applied transformer " + transformer);
             }
         }
         
-//        // No transformers could be applied; register all as applied
-//        System.out.println("No transformers could be applied; register all as applied");
-//        HashSet<ClassTransformer> appliedTransformers = classToAppliedTransformersMap.get(classNode);
-//        appliedTransformers.addAll(transformers);
-        
         return null;
         
 //        Optional<ClassAction> firstAction = transformers.stream()
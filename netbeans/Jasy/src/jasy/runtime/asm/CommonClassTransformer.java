@@ -1,30 +1,44 @@
 package jasy.runtime.asm;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.function.Predicate;
 import java.util.function.Consumer;
 import org.objectweb.asm.tree.ClassNode;
 
+/**
+ * Performs all of its actions on classes, which satisfy all of its predicates.
+ * The predicates are tested in the order they were added, stopping at the 
+ * first one, which fails, and the same action is returned for each matching 
+ * class; thus, resolving a class allocates nothing.
+ */
 public class CommonClassTransformer implements ClassTransformer {
-    private ArrayList<Predicate<ClassNode>> predicates = new ArrayList<>();
-    private ArrayList<Consumer<ClassNode>> actions = new ArrayList<>();
+    @SuppressWarnings("unchecked")
+    private Predicate<ClassNode>[] predicates = (Predicate<ClassNode>[])new Predicate<?>[0];
+    @SuppressWarnings("unchecked")
+    private Consumer<ClassNode>[] actions = (Consumer<ClassNode>[])new Consumer<?>[0];
+    private final ClassAction action = c -> {
+        for(Consumer<ClassNode> a: actions)
+            a.accept(c);
+    };
     
     public void addPredicate(Predicate<ClassNode> predicate) {
-        predicates.add(predicate);
+        predicates = Arrays.copyOf(predicates, predicates.length + 1);
+        predicates[predicates.length - 1] = predicate;
     }
     
     public void addAction(Consumer<ClassNode> action) {
-        actions.add(action);
+        actions = Arrays.copyOf(actions, actions.length + 1);
+        actions[actions.length - 1] = action;
     }
 
     @Override
     public ClassAction resolve(ClassNode classNode) {
-        boolean allPredicatesMatch = predicates.stream().allMatch(p -> p.test(classNode));
+        Predicate<ClassNode>[] predicates = this.predicates;
+        for(int i = 0; i < predicates.length; i++) {
+            if(!predicates[i].test(classNode))
+                return null;
+        }
         
-        if(allPredicatesMatch)
-            return c -> actions.forEach(a -> 
-                a.accept(c));
-        
-        return null;
+        return action;
     }
 }
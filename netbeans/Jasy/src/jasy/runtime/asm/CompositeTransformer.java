@@ -5,6 +5,13 @@ import java.util.function.Predicate;
 
 public interface CompositeTransformer<T> extends Function<T, Runnable> {
     void addTransformer(Function<T, Runnable> transformer);
+
+    /**
+     * By default, the predicate is added as a transformer, which applies if 
+     * the predicate holds and does nothing. Implementations may instead test 
+     * their predicates ahead of their transformers; thus, predicates must be 
+     * added before transformers.
+     */
     default void addPredicate(Predicate<T> predicate) {
         addTransformer(obj -> predicate.test(obj) ? () -> { } : null);
     }
@@ -1,18 +1,21 @@
 package jasy.runtime.asm;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Hashtable;
-import java.util.Optional;
+import java.util.BitSet;
 import java.util.function.Function;
 
-public class FirstByIndexTransformer<T, R> implements CompositeTransformer<T> {
+/**
+ * Applies the first of its transformers, which has not yet been applied to the
+ * object. The applied transformers are recorded, by their index, in the bit 
+ * set obtained from the object, which lives as long as the transformation of 
+ * the object; thus, nothing is retained once the object has been transformed.
+ */
+public class FirstByIndexTransformer<T> implements CompositeTransformer<T> {
     private ArrayList<Function<T, Runnable>> transformers = new ArrayList<>();
-    private Function<T, R> indexFunction;
-    private Hashtable<R, HashSet<Function<T, Runnable>>> indexToAppliedTransformersMap = new Hashtable<>();
+    private Function<T, BitSet> appliedTransformersFunction;
 
-    public FirstByIndexTransformer(Function<T, R> indexFunction) {
-        this.indexFunction = indexFunction;
+    public FirstByIndexTransformer(Function<T, BitSet> appliedTransformersFunction) {
+        this.appliedTransformersFunction = appliedTransformersFunction;
     }
     
     @Override
@@ -22,33 +25,14 @@ public class FirstByIndexTransformer<T, R> implements CompositeTransformer<T> {
 
     @Override
     public Runnable apply(T obj) {
-        R index = indexFunction.apply(obj);
+        BitSet appliedTransformers = appliedTransformersFunction.apply(obj);
+        int index = appliedTransformers.nextClearBit(0);
         
-        Optional<Function<T, Runnable>> firstTransformer = transformers.stream()
-            .filter(t -> canBeApplied(index, t))
-            .findFirst();
-        
-        if(firstTransformer.isPresent()) {
-            HashSet<Function<T, Runnable>> appliedTransformers = 
-                indexToAppliedTransformersMap.get(index);
-            if(appliedTransformers == null) {
-                appliedTransformers = new HashSet<>();
-                indexToAppliedTransformersMap.put(index, appliedTransformers);
-            }
-            Function<T, Runnable> t = firstTransformer.get();
-            appliedTransformers.add(t);
-            return t.apply(obj);
+        if(index < transformers.size()) {
+            appliedTransformers.set(index);
+            return transformers.get(index).apply(obj);
         }
         
         return null;
     }
-    
-    private boolean canBeApplied(R index, Function<T, Runnable> transformer) {
-        HashSet<Function<T, Runnable>> appliedTransformers = 
-            indexToAppliedTransformersMap.get(index);
-        
-        return 
-            appliedTransformers == null || 
-            !appliedTransformers.contains(transformer);
-    }
 }
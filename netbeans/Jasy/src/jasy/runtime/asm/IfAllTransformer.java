@@ -1,30 +1,65 @@
 package jasy.runtime.asm;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 
+/**
+ * Applies all of its transformers if each of them, and each of its 
+ * predicates, applies. The predicates are tested first and in the order they 
+ * were added, stopping at the first one, which fails; thus, nothing is 
+ * allocated for an object, which is not matched by the predicates. Since the
+ * predicates are tested ahead of the transformers, predicates cannot be added
+ * once a transformer has been added.
+ */
 public class IfAllTransformer<T> implements CompositeTransformer<T> {
-    private ArrayList<Function<T, Runnable>> transformers = new ArrayList<>();
+    private static final Runnable NO_ACTION = () -> { };
+    
+    // Arrays rather than lists, since they are iterated far more often than they are extended
+    @SuppressWarnings("unchecked")
+    private Predicate<T>[] predicates = (Predicate<T>[])new Predicate<?>[0];
+    @SuppressWarnings("unchecked")
+    private Function<T, Runnable>[] transformers = (Function<T, Runnable>[])new Function<?, ?>[0];
     
     @Override
     public void addTransformer(Function<T, Runnable> transformer) {
-        transformers.add(transformer);
+        transformers = Arrays.copyOf(transformers, transformers.length + 1);
+        transformers[transformers.length - 1] = transformer;
+    }
+
+    @Override
+    public void addPredicate(Predicate<T> predicate) {
+        if(transformers.length > 0)
+            throw new IllegalStateException("Predicates must be added before transformers.");
+        
+        predicates = Arrays.copyOf(predicates, predicates.length + 1);
+        predicates[predicates.length - 1] = predicate;
     }
 
     @Override
     public Runnable apply(T obj) {
-        List<Runnable> applicableTransformers = 
-            transformers.stream()
-                .map(t -> 
-                    t.apply(obj))
-                .filter(tr -> tr != null)
-                .collect(Collectors.toList());
+        Predicate<T>[] predicates = this.predicates;
+        for(int i = 0; i < predicates.length; i++) {
+            if(!predicates[i].test(obj))
+                return null;
+        }
+        
+        Function<T, Runnable>[] transformers = this.transformers;
+        if(transformers.length == 0)
+            return NO_ACTION;
+        if(transformers.length == 1)
+            return transformers[0].apply(obj);
+        
+        Runnable[] applicableTransformers = new Runnable[transformers.length];
+        for(int i = 0; i < transformers.length; i++) {
+            applicableTransformers[i] = transformers[i].apply(obj);
+            if(applicableTransformers[i] == null)
+                return null;
+        }
         
-        return applicableTransformers.size() == transformers.size()
-            ? () -> applicableTransformers.forEach(t -> 
-                    t.run())
-            : null;
+        return () -> {
+            for(Runnable t: applicableTransformers)
+                t.run();
+        };
     }
 }
@@ -1,14 +1,20 @@
 package jasy.runtime.asm;
 
 import java.util.List;
-import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
-import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
+/**
+ * Applies the transformer to each of the objects within an object if the 
+ * filter accepts all of them. The objects are filtered before the transformer
+ * is applied to any of them; thus, nothing is allocated for an object, within
+ * which some object is rejected. The objects are expected to be in a random
+ * access list, such as the member lists of ASM nodes.
+ */
 public class IfAllWithin<T, R> implements Function<T, Runnable> {
+    private static final Runnable NO_ACTION = () -> { };
+    
     private Function<T, List<R>> objectsFunction;
     private Predicate<R> filter;
     private BiFunction<T, R, Runnable> transformer;
@@ -22,16 +28,23 @@ public class IfAllWithin<T, R> implements Function<T, Runnable> {
     @Override
     public Runnable apply(T obj) {
         List<R> objects = objectsFunction.apply(obj);
-        List<R> applicableObjects = objects.stream()
-                .filter(filter)
-                .collect(Collectors.toList());
+        int size = objects.size();
+        
+        for(int i = 0; i < size; i++) {
+            if(!filter.test(objects.get(i)))
+                return null;
+        }
+        
+        if(size == 0)
+            return NO_ACTION;
         
-        List<Runnable> tranformations = applicableObjects.stream()
-            .map(o -> 
-                transformer.apply(obj, o)).collect(Collectors.toList());
+        Runnable[] tranformations = new Runnable[size];
+        for(int i = 0; i < size; i++)
+            tranformations[i] = transformer.apply(obj, objects.get(i));
         
-        return applicableObjects.size() == objects.size()
-            ? () -> tranformations.forEach(r -> r.run())  //() -> applicableObjects.forEach(o -> transformer.accept(obj, o))
-            : null;
+        return () -> {
+            for(Runnable r: tranformations)
+                r.run();
+        };
     }
 }
@@ -0,0 +1,12 @@
+package jasy.runtime.asm;
+
+/**
+ * Tests members of a class against a fixed set of selectors.
+ */
+public interface MemberMatcher {
+    /**
+     * @param selector The index of the selector to test against.
+     * @param desc The descriptor of the member in internal form.
+     */
+    boolean matches(int selector, int access, String name, String desc);
+}
@@ -0,0 +1,129 @@
+package jasy.runtime.javassist;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+
+/**
+ * Keeps the number of CtClasses, which are made in a ClassPool for
+ * transformation, bounded. After a class has been turned into bytecode, it is
+ * retained in the pool for as long as it is among the most recently
+ * transformed classes, such that it can be referenced again by later
+ * transformations; hereafter, it is detached from the pool. Classes are 
+ * evicted in the order they were transformed, regardless of whether later 
+ * transformations referred to them, since the pool may be shared and can 
+ * thus not report its lookups.
+ */
+public class ClassPoolManager {
+    public static final int DEFAULT_MAX_RETAINED_CLASSES = 256;
+
+    private final ClassPool classPool;
+    private final int maxRetainedClasses;
+    private final LinkedHashMap<String, CtClass> retainedClasses = new LinkedHashMap<>();
+    private long transformedCount;
+    private long evictionCount;
+
+    public ClassPoolManager(ClassPool classPool) {
+        this(classPool, DEFAULT_MAX_RETAINED_CLASSES);
+    }
+
+    /**
+     * @param maxRetainedClasses The maximum number of transformed classes to
+     * retain in the pool; 0 means that classes are detached as soon as they
+     * have been turned into bytecode.
+     */
+    public ClassPoolManager(ClassPool classPool, int maxRetainedClasses) {
+        this.classPool = classPool;
+        this.maxRetainedClasses = maxRetainedClasses;
+    }
+
+    public ClassPool getClassPool() {
+        return classPool;
+    }
+
+    public CtClass makeClass(byte[] classfileBuffer) throws IOException {
+        // A retained class of the same name, e.g. if the class is being 
+        // retransformed, is frozen; it is replaced rather than rejected
+        return classPool.makeClass(new ByteArrayInputStream(classfileBuffer), false);
+    }
+
+    /**
+     * Turns ctClass into bytecode and hands it over to the manager, i.e. ctClass
+     * should not be used by the caller afterwards. If ctClass cannot be turned
+     * into bytecode, it is discarded rather than retained.
+     */
+    public byte[] toBytecode(CtClass ctClass) throws IOException, CannotCompileException {
+        byte[] bytecode;
+        try {
+            bytecode = ctClass.toBytecode();
+        } catch (IOException | CannotCompileException | RuntimeException ex) {
+            discard(ctClass);
+            throw ex;
+        }
+        
+        release(ctClass);
+        return bytecode;
+    }
+
+    /**
+     * Hands ctClass over to the manager, i.e. ctClass should not be used by the
+     * caller afterwards.
+     */
+    public void release(CtClass ctClass) {
+        synchronized(retainedClasses) {
+            transformedCount++;
+
+            if(maxRetainedClasses == 0) {
+                ctClass.detach();
+                return;
+            }
+
+            // A previously retained class of the same name has already been 
+            // replaced in the pool by ctClass, which counts as transformed last
+            retainedClasses.remove(ctClass.getName());
+            retainedClasses.put(ctClass.getName(), ctClass);
+
+            Iterator<Map.Entry<String, CtClass>> eldest = retainedClasses.entrySet().iterator();
+            while(retainedClasses.size() > maxRetainedClasses) {
+                CtClass evicted = eldest.next().getValue();
+                eldest.remove();
+                evicted.detach();
+                evictionCount++;
+            }
+        }
+    }
+
+    /**
+     * Detaches ctClass from the pool right away, e.g. because its 
+     * transformation failed.
+     */
+    public void discard(CtClass ctClass) {
+        ctClass.detach();
+    }
+
+    /**
+     * @return The number of transformed classes currently retained in the pool.
+     */
+    public int getRetainedClassCount() {
+        synchronized(retainedClasses) {
+            return retainedClasses.size();
+        }
+    }
+
+    public long getTransformedCount() {
+        synchronized(retainedClasses) {
+            return transformedCount;
+        }
+    }
+
+    public long getEvictionCount() {
+        synchronized(retainedClasses) {
+            return evictionCount;
+        }
+    }
+}
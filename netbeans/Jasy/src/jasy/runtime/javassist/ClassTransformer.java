@@ -1,7 +1,17 @@
 package jasy.runtime.javassist;
 
+import java.util.BitSet;
 import javassist.CtClass;
 
 public interface ClassTransformer {
     ClassAction resolve(CtClass ctClasss);
+
+    /**
+     * @param appliedTransformers The transformers, by index, which have been
+     * applied to the class so far; it lives as long as the transformation of
+     * the class and is only used by composite transformers.
+     */
+    default ClassAction resolve(CtClass ctClass, BitSet appliedTransformers) {
+        return resolve(ctClass);
+    }
 }
@@ -1,14 +1,16 @@
 package jasy.runtime.javassist;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Hashtable;
-import java.util.List;
-import java.util.Optional;
+import java.util.BitSet;
 import javassist.CtClass;
 
+/**
+ * Applies the first of its transformers, which has not yet been applied to the
+ * class and which can be applied. Which transformers have been applied is only
+ * known within a single transformation of a class; when resolved without the
+ * applied transformers, none are considered applied.
+ */
 public class ClassTransformerSequence implements ClassTransformer {
-    private Hashtable<CtClass, HashSet<ClassTransformer>> classToAppliedTransformersMap = new Hashtable<>();
     private ArrayList<ClassTransformer> transformers = new ArrayList<>();
     
     public void addTransformer(ClassTransformer transformer) {
@@ -17,18 +19,16 @@ public class ClassTransformerSequence implements ClassTransformer {
 
     @Override
     public ClassAction resolve(CtClass ctClass) {
-        for(ClassTransformer transformer: transformers) {
-            HashSet<ClassTransformer> appliedTransformers = classToAppliedTransformersMap.get(ctClass);
-            
-            if(appliedTransformers == null) {
-                appliedTransformers = new HashSet<>();
-                classToAppliedTransformersMap.put(ctClass, appliedTransformers);
-            }
-            
-            if(!appliedTransformers.contains(transformer)) {
-                ClassAction a = transformer.resolve(ctClass);
+        return resolve(ctClass, new BitSet());
+    }
+
+    @Override
+    public ClassAction resolve(CtClass ctClass, BitSet appliedTransformers) {
+        for(int i = 0; i < transformers.size(); i++) {
+            if(!appliedTransformers.get(i)) {
+                ClassAction a = transformers.get(i).resolve(ctClass);
                 if(a != null) {
-                    appliedTransformers.add(transformer);
+                    appliedTransformers.set(i);
                     return a;
                 }
             }
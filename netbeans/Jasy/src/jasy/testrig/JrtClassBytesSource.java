@@ -0,0 +1,50 @@
+package jasy.testrig;
+
+import jasy.lang.ClassBytesSource;
+import jasy.lang.CommonClassMap;
+import jasy.lang.JrtClassMap;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the bytes of the classes of the running JDK from its module image, 
+ * i.e. the counterpart of JarClassBytesSource over rt.jar for JDK 9 and 
+ * onwards. Classes are read on demand.
+ */
+public class JrtClassBytesSource implements ClassBytesSource {
+    private JrtClassMap classMap;
+
+    public JrtClassBytesSource() {
+        try {
+            classMap = JrtClassMap.open(CommonClassMap.getDefaultCacheDirectory());
+        } catch (IOException ex) {
+            Logger.getLogger(JrtClassBytesSource.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    @Override
+    public void initialize(ClassLoader classLoader) {
+    }
+
+    @Override
+    public byte[] getBytes(ClassLoader classLoader, String className) {
+        // Classes in java.* cannot be defined by other class loaders than the bootstrap loader
+        if(classMap == null || className.startsWith("java."))
+            return null;
+        
+        Path classFile = classMap.findClassFile(className);
+        
+        if(classFile == null)
+            return null;
+        
+        try {
+            return Files.readAllBytes(classFile);
+        } catch (IOException ex) {
+            Logger.getLogger(JrtClassBytesSource.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import jasy.lang.CommonClassResolver;
 import jasy.lang.ModuleClassBytesTransformer;
 import jasy.lang.ProxyClassLoader;
 import jasy.lang.SingleClassLoader;
+import jasy.lang.TransformationDiagnostics;
 import jasy.lang.ast.ClassNodeScope;
 import jasy.lang.ast.CodeAST;
 import jasy.lang.ast.CodePrinter;
@@ -24,6 +25,7 @@ import java.awt.BorderLayout;
 import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.lang.reflect.InvocationTargetException;
@@ -97,7 +99,8 @@ public class Main {
         String javaRTJar = System.getProperty("java.home") + "/lib/rt.jar";
 //        JarClassBytesSource classBytesSource = new JarClassBytesSource(javaRTJar);
         
-        Future<JarClassBytesSource> classBytesSourceResource = getResource(() -> new JarClassBytesSource(javaRTJar));
+        Future<ClassBytesSource> classBytesSourceResource = getResource(() -> 
+            new File(javaRTJar).exists() ? new JarClassBytesSource(javaRTJar) : new JrtClassBytesSource());
         Future<CommonClassMap> classMapResource = getResource(() -> CommonClassMap.createDefault());
 //        ClassLoader alwaysErrClassLoader = new ClassLoader() {
 //            @Override
@@ -124,7 +127,7 @@ public class Main {
                         ClassBytesSource classBytesSource = classBytesSourceResource.get();
                         ClassLoader classLoader = new ProxyClassLoader(
                             classBytesSource
-                            .andThen(new ModuleClassBytesTransformer(moduleSource, classResolver))
+                            .andThen(new ModuleClassBytesTransformer(moduleSource, classResolver, new TransformationDiagnostics(TransformationDiagnostics.Level.TRACE_AND_VERIFY, TransformationDiagnostics.printTo(System.out))))
                         );
                     
                         CodeAST applicationCode = compiler.compileStatements(new ByteArrayInputStream(applicationSourceCode.getBytes()));
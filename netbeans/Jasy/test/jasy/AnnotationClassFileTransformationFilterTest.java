@@ -0,0 +1,92 @@
+package jasy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AnnotationClassFileTransformationFilterTest {
+    @Retention(RetentionPolicy.RUNTIME)
+    private @interface Other {
+        Intercept nested();
+        String[] names();
+        ElementType kind();
+        Class<?> type();
+        int number();
+    }
+
+    @Retention(RetentionPolicy.CLASS)
+    private @interface Invisible { }
+
+    private static class NotAnnotated { }
+
+    @Other(nested = @Intercept, names = {"a", "b"}, kind = ElementType.TYPE, type = String.class, number = 1)
+    @Intercept
+    private static class InterceptedAfterOther { }
+
+    @Other(nested = @Intercept, names = {}, kind = ElementType.FIELD, type = int[].class, number = 2)
+    private static class InterceptNestedInOther { }
+
+    private static class InterceptedMethod {
+        @Intercept
+        public void method() { }
+    }
+
+    @Invisible
+    @Intercept
+    private static class InterceptedAfterInvisible { }
+
+    @Invisible
+    private static class InvisiblyAnnotated { }
+
+    private static boolean shouldTransform(Class<?> annotation, Class<?> c) throws IOException {
+        AnnotationClassFileTransformationFilter filter = new AnnotationClassFileTransformationFilter(annotation);
+        return filter.shouldTransform(c.getClassLoader(), c.getName().replace('.', '/'), null, null, readClassBytes(c));
+    }
+
+    @Test
+    public void testClassWithoutAnnotationsIsRejected() throws IOException {
+        assertFalse(shouldTransform(Intercept.class, NotAnnotated.class));
+    }
+
+    @Test
+    public void testAnnotationAfterOtherAnnotationsIsAccepted() throws IOException {
+        assertTrue(shouldTransform(Intercept.class, InterceptedAfterOther.class));
+    }
+
+    @Test
+    public void testAnnotationAsElementValueIsRejected() throws IOException {
+        assertFalse(shouldTransform(Intercept.class, InterceptNestedInOther.class));
+    }
+
+    @Test
+    public void testAnnotationOnMethodIsRejected() throws IOException {
+        assertFalse(shouldTransform(Intercept.class, InterceptedMethod.class));
+    }
+
+    @Test
+    public void testAnnotationAfterInvisibleAnnotationsIsAccepted() throws IOException {
+        assertTrue(shouldTransform(Intercept.class, InterceptedAfterInvisible.class));
+    }
+
+    @Test
+    public void testInvisibleAnnotationIsAccepted() throws IOException {
+        assertTrue(shouldTransform(Invisible.class, InvisiblyAnnotated.class));
+        assertFalse(shouldTransform(Intercept.class, InvisiblyAnnotated.class));
+    }
+
+    private static byte[] readClassBytes(Class<?> c) throws IOException {
+        try(InputStream classStream = c.getClassLoader().getResourceAsStream(c.getName().replace('.', '/') + ".class")) {
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while((length = classStream.read(buffer)) != -1)
+                classBytes.write(buffer, 0, length);
+            return classBytes.toByteArray();
+        }
+    }
+}
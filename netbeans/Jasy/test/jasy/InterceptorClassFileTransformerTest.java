@@ -0,0 +1,133 @@
+package jasy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.IllegalClassFormatException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.List;
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class InterceptorClassFileTransformerTest {
+    private static class TestInterceptor implements Interceptor {
+        private int systemCount;
+        private final List<WeakReference<ClassLoader>> classLoaders = new ArrayList<>();
+        private Runnable onInterceptSystem = () -> { };
+
+        @Override
+        public SystemInterceptor interceptSystem(ClassPool classPool, ClassLoader loader, ProtectionDomain protectionDomain) {
+            systemCount++;
+            onInterceptSystem.run();
+
+            return new SystemInterceptor() {
+                @Override
+                public ClassInterceptor interceptClass(CtClass klass, ClassLoader loader, ProtectionDomain protectionDomain) {
+                    classLoaders.add(new WeakReference<>(loader));
+                    try {
+                        klass.addField(CtField.make("public int intercepted;", klass));
+                    } catch (CannotCompileException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                    return new DefaultClassInterceptor();
+                }
+            };
+        }
+    }
+
+    private static InterceptorClassFileTransformer createTransformer(TestInterceptor interceptor) {
+        return new InterceptorClassFileTransformer((loader, className, classBeingRedefined, protectionDomain, classfileBuffer) -> true, interceptor);
+    }
+
+    private static URLClassLoader createClassLoader() {
+        return new URLClassLoader(new URL[0], null);
+    }
+
+    @Test
+    public void testSystemIsInterceptedOncePerClassLoader() throws IllegalClassFormatException, IOException {
+        TestInterceptor interceptor = new TestInterceptor();
+        InterceptorClassFileTransformer transformer = createTransformer(interceptor);
+        byte[] classBytes1 = readClassBytes(TestClass1.class);
+        byte[] classBytes2 = readClassBytes(TestClass2.class);
+
+        try(URLClassLoader classLoader = createClassLoader(); URLClassLoader otherClassLoader = createClassLoader()) {
+            assertNotSame(classBytes1, transformer.transform(classLoader, "jasy/TestClass1", null, null, classBytes1));
+            assertNotSame(classBytes2, transformer.transform(classLoader, "jasy/TestClass2", null, null, classBytes2));
+            assertEquals(1, interceptor.systemCount);
+
+            transformer.transform(otherClassLoader, "jasy/TestClass1", null, null, classBytes1);
+            assertEquals(2, interceptor.systemCount);
+            assertEquals(2, transformer.getClassPoolCount());
+
+            // The class loader is passed for each class
+            assertSame(classLoader, interceptor.classLoaders.get(0).get());
+            assertSame(otherClassLoader, interceptor.classLoaders.get(2).get());
+        }
+    }
+
+    @Test
+    public void testClassLoadedWhileInterceptingSystemIsNotIntercepted() throws IllegalClassFormatException, IOException {
+        TestInterceptor interceptor = new TestInterceptor();
+        InterceptorClassFileTransformer transformer = createTransformer(interceptor);
+        byte[] classBytes1 = readClassBytes(TestClass1.class);
+        byte[] classBytes2 = readClassBytes(TestClass2.class);
+
+        try(URLClassLoader classLoader = createClassLoader()) {
+            List<byte[]> reentrantResults = new ArrayList<>();
+            interceptor.onInterceptSystem = () -> {
+                try {
+                    reentrantResults.add(transformer.transform(classLoader, "jasy/TestClass2", null, null, classBytes2));
+                } catch (IllegalClassFormatException ex) {
+                    throw new RuntimeException(ex);
+                }
+            };
+
+            assertNotSame(classBytes1, transformer.transform(classLoader, "jasy/TestClass1", null, null, classBytes1));
+            assertEquals(1, reentrantResults.size());
+            assertSame(classBytes2, reentrantResults.get(0));
+            assertEquals(1, interceptor.systemCount);
+        }
+    }
+
+    @Test
+    public void testUnreferencedClassLoaderIsCollected() throws Exception {
+        TestInterceptor interceptor = new TestInterceptor();
+        InterceptorClassFileTransformer transformer = createTransformer(interceptor);
+        byte[] classBytes = readClassBytes(TestClass1.class);
+
+        URLClassLoader classLoader = createClassLoader();
+        assertNotSame(classBytes, transformer.transform(classLoader, "jasy/TestClass1", null, null, classBytes));
+        assertEquals(1, transformer.getClassPoolCount());
+
+        WeakReference<ClassLoader> classLoaderReference = new WeakReference<>(classLoader);
+        classLoader.close();
+        classLoader = null;
+
+        for(int i = 0; i < 10 && classLoaderReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(classLoaderReference.get());
+        assertEquals(0, transformer.getClassPoolCount());
+    }
+
+    private static byte[] readClassBytes(Class<?> c) throws IOException {
+        try(InputStream classStream = c.getResourceAsStream(c.getSimpleName() + ".class")) {
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while((length = classStream.read(buffer)) != -1)
+                classBytes.write(buffer, 0, length);
+            return classBytes.toByteArray();
+        }
+    }
+}
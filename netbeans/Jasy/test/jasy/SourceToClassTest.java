@@ -74,6 +74,16 @@ public class SourceToClassTest {
         );
     }
     
+    @Test
+    public void testNamedClassAdd1PublicPrimitiveFieldOnlyToNamedClass() throws IOException {
+        testSourceToClasses(
+            new String[]{"jasy.TestClass1", "jasy.TestClass2"}, 
+            "class jasy.TestClass1 {+public float someField2;}", 
+            forClass("jasy.TestClass1", chasFieldWhere(fname(is("someField2"))))
+            .and(forClass("jasy.TestClass2", chasFieldWhere(fname(is("someField2"))).negate()))
+        );
+    }
+    
     @Test
     public void testAllClassesAdd1ProtectedPrimitiveField() throws IOException {
         testSourceToClasses(
@@ -812,6 +822,53 @@ public class SourceToClassTest {
         );
     }
     
+    @Test
+    public void testAllClassesAddMethodForFieldsOfType() throws IOException {
+        String src =
+            "class {\n" +
+            "    fields=public int;\n" +
+            "    +public String getDescription() {\n" +
+            "        return $fields.get(0).name;\n" +
+            "    }\n" +
+            "}\n";
+        
+        // Only the fields of the first class are all of the selected type
+        testSourceToClasses(
+            new String[]{"jasy.TestClass1", "jasy.TestClass2"}, 
+            src, 
+            forClass("jasy.TestClass1", 
+                forInstance(imethod("getDescription", invocationResult(is("field"))))
+            )
+            .and(forClass("jasy.TestClass2", chasMethodWhere(m -> m.getName().equals("getDescription")).negate()))
+        );
+    }
+    
+    @Test
+    public void testAllClassesAddMethodForNonStaticFields() throws IOException {
+        String src =
+            "class {\n" +
+            "    fields=public String;\n" +
+            "    +public String getDescription() {\n" +
+            "        return $fields.get(0).name;\n" +
+            "    }\n" +
+            "}\n";
+        
+        // The only field of the class is static
+        testSourceToClasses(
+            new String[]{"jasy.TestClassStaticField"}, 
+            src, 
+            forClass("jasy.TestClassStaticField", chasMethodWhere(m -> m.getName().equals("getDescription")).negate())
+        );
+        
+        testSourceToClasses(
+            new String[]{"jasy.TestClassStaticField"}, 
+            src.replace("public String", "public static String"), 
+            forClass("jasy.TestClassStaticField", 
+                forInstance(imethod("getDescription", invocationResult(is("myField"))))
+            )
+        );
+    }
+    
 //    @Test
 //    public void testAllClassesAddMethodReturnValueOfMetaVariable() throws IOException {
 //        int expectedResult = 5;
@@ -0,0 +1,66 @@
+package jasy.lang;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ClassNameIndexTest {
+    private static Map<String, List<String>> createPackages() {
+        HashMap<String, List<String>> packageToClassNamesMap = new HashMap<>();
+        packageToClassNamesMap.put("java.lang", Arrays.asList("String", "Object", "String"));
+        packageToClassNamesMap.put("java.util", Arrays.asList("List", "Map"));
+        packageToClassNamesMap.put("", Arrays.asList("Default"));
+        packageToClassNamesMap.put("p.\u00e4", Arrays.asList("K\u00e4se"));
+        return packageToClassNamesMap;
+    }
+    
+    private static void assertPackages(ClassNameIndex index) {
+        assertEquals(new HashSet<>(Arrays.asList("String", "Object")), index.getClassNames("java.lang"));
+        assertEquals(new HashSet<>(Arrays.asList("List", "Map")), index.getClassNames("java.util"));
+        assertEquals(new HashSet<>(Arrays.asList("Default")), index.getClassNames(""));
+        assertEquals(new HashSet<>(Arrays.asList("K\u00e4se")), index.getClassNames("p.\u00e4"));
+        // Packages, which only contain other packages, are known but empty
+        assertEquals(new HashSet<>(), index.getClassNames("java"));
+        assertNull(index.getClassNames("java.lan"));
+        assertNull(index.getClassNames("javax"));
+        assertTrue(index.containsClass("java.util", "Map"));
+        assertFalse(index.containsClass("java.util", "String"));
+    }
+    
+    @Test
+    public void testLookupInMemory() {
+        assertPackages(ClassNameIndex.fromMap("stamp", createPackages()));
+    }
+    
+    @Test
+    public void testLookupInFile() throws IOException {
+        Path file = Files.createTempFile("jasy", ".idx");
+        try {
+            ClassNameIndex.write(file, "stamp\n1", createPackages());
+            ClassNameIndex index = ClassNameIndex.open(file);
+            
+            assertEquals("stamp\n1", index.getStamp());
+            assertPackages(index);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    @Test(expected = IOException.class)
+    public void testInvalidFileIsRejected() throws IOException {
+        Path file = Files.createTempFile("jasy", ".idx");
+        try {
+            Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20});
+            ClassNameIndex.open(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
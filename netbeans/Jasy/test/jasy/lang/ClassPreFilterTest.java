@@ -0,0 +1,95 @@
+package jasy.lang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+public class ClassPreFilterTest {
+    private static final String ANNOTATION_DESCRIPTOR = "Ljasy/Marker;";
+    
+    @Test
+    public void testNamedClassAfterLongAndDoubleConstants() {
+        ClassPreFilter preFilter = new ClassPreFilter();
+        preFilter.addRequirement("p/Target", null, Collections.emptyList());
+        
+        // The constants precede the name of the class in the constant pool
+        assertTrue(preFilter.mayMatch(createClass("p/Target", Opcodes.ACC_PUBLIC, 1L, 2.0, false)));
+        assertFalse(preFilter.mayMatch(createClass("p/Other", Opcodes.ACC_PUBLIC, 1L, 2.0, false)));
+    }
+    
+    @Test
+    public void testAnnotationAfterLongAndDoubleConstants() {
+        byte[] classBytes = createClass("p/Target", Opcodes.ACC_PUBLIC, 1L, 2.0, true);
+        
+        assertTrue(ClassPreFilter.containsUTF8(classBytes, ClassPreFilter.toModifiedUTF8(ANNOTATION_DESCRIPTOR)));
+        assertFalse(ClassPreFilter.containsUTF8(classBytes, ClassPreFilter.toModifiedUTF8("Ljasy/Other;")));
+    }
+    
+    @Test
+    public void testModifiedUTF8MatchesClassFileEncoding() throws IOException {
+        for(String str: new String[]{"p/Target", "p/K\u00e4se", "p/\u20ac", "p/\u0000", "p/\ud83d\ude00"}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            new DataOutputStream(bytes).writeUTF(str);
+            byte[] expected = Arrays.copyOfRange(bytes.toByteArray(), 2, bytes.size());
+            
+            assertArrayEquals(str, expected, ClassPreFilter.toModifiedUTF8(str));
+        }
+    }
+    
+    @Test
+    public void testNamedClassWithNonASCIIName() {
+        ClassPreFilter preFilter = new ClassPreFilter();
+        preFilter.addRequirement("p/K\u00e4se\u20ac", null, Collections.emptyList());
+        
+        assertTrue(preFilter.mayMatch(createClass("p/K\u00e4se\u20ac", Opcodes.ACC_PUBLIC, null, null, false)));
+        assertFalse(preFilter.mayMatch(createClass("p/Kase\u20ac", Opcodes.ACC_PUBLIC, null, null, false)));
+    }
+    
+    @Test
+    public void testNamedClassWithAnnotation() {
+        ClassPreFilter preFilter = new ClassPreFilter();
+        preFilter.addRequirement("p/Target", null, Arrays.asList(ANNOTATION_DESCRIPTOR));
+        
+        assertTrue(preFilter.mayMatch(createClass("p/Target", Opcodes.ACC_PUBLIC, null, null, true)));
+        assertFalse(preFilter.mayMatch(createClass("p/Target", Opcodes.ACC_PUBLIC, null, null, false)));
+        assertFalse(preFilter.mayMatch(createClass("p/Other", Opcodes.ACC_PUBLIC, null, null, true)));
+    }
+    
+    @Test
+    public void testAccessModifier() {
+        ClassPreFilter preFilter = new ClassPreFilter();
+        preFilter.addRequirement(null, Opcodes.ACC_PUBLIC, Collections.emptyList());
+        
+        assertFalse(preFilter.matchesAll());
+        assertTrue(preFilter.mayMatch(createClass("p/Target", Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, null, null, false)));
+        assertFalse(preFilter.mayMatch(createClass("p/Target", Opcodes.ACC_SUPER, null, null, false)));
+    }
+    
+    @Test
+    public void testMatchesAll() {
+        ClassPreFilter preFilter = new ClassPreFilter();
+        preFilter.addRequirement(null, null, Collections.emptyList());
+        
+        assertTrue(preFilter.matchesAll());
+        assertTrue(preFilter.mayMatch(createClass("p/Other", 0, null, null, false)));
+    }
+    
+    private static byte[] createClass(String name, int access, Long longConstant, Double doubleConstant, boolean annotated) {
+        ClassWriter classWriter = new ClassWriter(0);
+        if(longConstant != null)
+            classWriter.newConst(longConstant);
+        if(doubleConstant != null)
+            classWriter.newConst(doubleConstant);
+        classWriter.visit(Opcodes.V1_8, access, name, null, "java/lang/Object", null);
+        if(annotated)
+            classWriter.visitAnnotation(ANNOTATION_DESCRIPTOR, true).visitEnd();
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+}
@@ -0,0 +1,77 @@
+package jasy.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ClassResolutionCacheTest {
+    private static class RecordingClassLoader extends ClassLoader {
+        private final List<String> requestedNames = new ArrayList<>();
+
+        public RecordingClassLoader() {
+            super(ClassResolutionCacheTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            requestedNames.add(name);
+            return super.loadClass(name, resolve);
+        }
+    }
+
+    @Test
+    public void testClassIsResolved() throws ClassNotFoundException {
+        RecordingClassLoader classLoader = new RecordingClassLoader();
+
+        assertSame(String.class, ClassResolutionCache.forName("java.lang.String", classLoader));
+        assertSame(String.class, ClassResolutionCache.forName("java.lang.String", null));
+        assertSame(getClass(), ClassResolutionCache.forName(getClass().getName(), classLoader));
+    }
+
+    @Test
+    public void testResolutionIsCached() throws ClassNotFoundException {
+        RecordingClassLoader classLoader = new RecordingClassLoader();
+
+        ClassResolutionCache.forName("java.lang.String", classLoader);
+        ClassResolutionCache.forName("java.lang.String", classLoader);
+
+        assertTrue(classLoader.requestedNames.size() <= 1);
+    }
+
+    @Test
+    public void testMissingClassIsCachedUntilInvalidated() {
+        RecordingClassLoader classLoader = new RecordingClassLoader();
+        String name = "jasy.lang.NoSuchClass";
+
+        assertNotFound(name, classLoader);
+        assertNotFound(name, classLoader);
+        assertEquals(1, classLoader.requestedNames.size());
+
+        ClassResolutionCache.invalidate(classLoader);
+
+        assertNotFound(name, classLoader);
+        assertEquals(2, classLoader.requestedNames.size());
+    }
+
+    @Test
+    public void testResolutionsAreKeptPerClassLoader() {
+        RecordingClassLoader classLoader = new RecordingClassLoader();
+        RecordingClassLoader otherClassLoader = new RecordingClassLoader();
+        String name = "jasy.lang.NoSuchClass";
+
+        assertNotFound(name, classLoader);
+        assertNotFound(name, otherClassLoader);
+
+        assertEquals(1, otherClassLoader.requestedNames.size());
+    }
+
+    private static void assertNotFound(String name, ClassLoader classLoader) {
+        try {
+            ClassResolutionCache.forName(name, classLoader);
+            fail();
+        } catch (ClassNotFoundException ex) {
+            assertEquals(name, ex.getMessage());
+        }
+    }
+}
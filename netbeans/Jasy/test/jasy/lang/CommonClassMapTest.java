@@ -0,0 +1,114 @@
+package jasy.lang;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CommonClassMapTest {
+    private Path directory;
+    private Path cacheDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jasy-classmap");
+        cacheDirectory = directory.resolve("cache");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try(Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+    }
+
+    private static void writeJar(Path jar, long lastModified, String... classPaths) throws IOException {
+        try(OutputStream output = Files.newOutputStream(jar);
+            ZipOutputStream zipOutput = new ZipOutputStream(output)) {
+            for(String classPath: classPaths) {
+                zipOutput.putNextEntry(new ZipEntry(classPath));
+                zipOutput.closeEntry();
+            }
+        }
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(lastModified));
+    }
+
+    @Test
+    public void testJarIndexIsCached() throws IOException {
+        Path jar = directory.resolve("lib.jar");
+        writeJar(jar, 1000000, "p/A.class", "p/q/B.class");
+
+        CommonClassMap classMap = new CommonClassMap(cacheDirectory);
+        classMap.addFromJar(jar.toString());
+
+        assertTrue(classMap.containsClass("p", "A"));
+        assertTrue(classMap.containsClass("p.q", "B"));
+        assertFalse(classMap.containsClass("p", "B"));
+
+        try(Stream<Path> cacheFiles = Files.list(cacheDirectory)) {
+            assertEquals(1, cacheFiles.filter(f -> f.toString().endsWith(".idx")).count());
+        }
+
+        // The cached index is used as long as the jar is unchanged
+        CommonClassMap cachedClassMap = new CommonClassMap(cacheDirectory);
+        cachedClassMap.addFromJar(jar.toString());
+
+        assertTrue(cachedClassMap.containsClass("p", "A"));
+    }
+
+    @Test
+    public void testStaleJarIndexIsRebuilt() throws IOException {
+        Path jar = directory.resolve("lib.jar");
+        writeJar(jar, 1000000, "p/A.class");
+
+        new CommonClassMap(cacheDirectory).addFromJar(jar.toString());
+
+        writeJar(jar, 2000000, "p/A.class", "p/Added.class");
+        CommonClassMap classMap = new CommonClassMap(cacheDirectory);
+        classMap.addFromJar(jar.toString());
+
+        assertTrue(classMap.containsClass("p", "Added"));
+    }
+
+    @Test
+    public void testStaleJarIndexIsRebuiltOnContentChange() throws IOException {
+        Path jar = directory.resolve("lib.jar");
+        writeJar(jar, 1000000, "p/A.class");
+
+        new CommonClassMap(cacheDirectory).addFromJar(jar.toString());
+
+        // Same size and last modified time, but different content
+        writeJar(jar, 1000000, "p/B.class");
+        CommonClassMap classMap = new CommonClassMap(cacheDirectory);
+        classMap.setVerifyContentHash(true);
+        classMap.addFromJar(jar.toString());
+
+        assertTrue(classMap.containsClass("p", "B"));
+        assertFalse(classMap.containsClass("p", "A"));
+    }
+
+    @Test
+    public void testFailingPathDoesNotStopOtherPaths() throws IOException {
+        Path first = directory.resolve("first.jar");
+        Path last = directory.resolve("last.jar");
+        writeJar(first, 1000000, "p/A.class");
+        writeJar(last, 1000000, "q/B.class");
+
+        CommonClassMap classMap = new CommonClassMap(cacheDirectory);
+        // The invalid path fails with an exception rather than being skipped
+        classMap.addFromPaths(Arrays.asList(first.toString(), "invalid\0.jar", last.toString()), 2);
+
+        assertTrue(classMap.containsClass("p", "A"));
+        assertTrue(classMap.containsClass("q", "B"));
+    }
+}
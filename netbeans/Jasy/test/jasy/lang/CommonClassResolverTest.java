@@ -0,0 +1,150 @@
+package jasy.lang;
+
+import jasy.lang.ast.ModuleAST;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CommonClassResolverTest {
+    private static CommonClassResolver createResolver() {
+        CommonClassMap classMap = new CommonClassMap();
+        classMap.addClassName("java.lang.String");
+        classMap.addClassName("java.lang.Object");
+        classMap.addClassName("java.util.List");
+        classMap.addClassName("java.awt.List");
+        classMap.addClassName("jasy.TestClassStaticField");
+        classMap.addClassName("jasy.other.TestClassStaticField");
+        return new CommonClassResolver(classMap);
+    }
+
+    @Test
+    public void testImportedNameIsResolved() {
+        CommonClassResolver resolver = createResolver();
+        resolver.importPackage("java.lang");
+
+        assertEquals("java.lang.String", resolver.resolveClassName("String"));
+        // Qualified names and names, which are not imported, are left as they are
+        assertEquals("java.util.List", resolver.resolveClassName("java.util.List"));
+        assertEquals("List", resolver.resolveClassName("List"));
+    }
+
+    @Test
+    public void testUnresolvedNameIsResolvedAfterImport() {
+        CommonClassResolver resolver = createResolver();
+        resolver.importPackage("java.lang");
+
+        assertEquals("List", resolver.resolveClassName("List"));
+
+        resolver.importPackage("java.util");
+
+        assertEquals("java.util.List", resolver.resolveClassName("List"));
+    }
+
+    @Test
+    public void testAmbiguousName() {
+        CommonClassResolver resolver = createResolver();
+        resolver.importPackage("java.util");
+        resolver.importPackage("java.awt");
+
+        for(int i = 0; i < 2; i++) {
+            // The second time, the ambiguity is cached
+            try {
+                resolver.resolveClassName("List");
+                fail();
+            } catch(AmbiguousClassNameException ex) {
+                assertEquals("List", ex.getClassName());
+                assertEquals(Arrays.asList("java.util.List", "java.awt.List"), ex.getCandidates());
+            }
+        }
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void testAmbiguousTypeIsNotFound() throws ClassNotFoundException {
+        CommonClassResolver resolver = createResolver();
+        resolver.importPackage("java.util");
+        resolver.importPackage("java.awt");
+
+        resolver.resolveType(getClass().getClassLoader(), "List");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUnknownPackageIsRejected() {
+        createResolver().importPackage("java.unknown");
+    }
+
+    @Test
+    public void testParentPackageCanBeImported() {
+        createResolver().importPackage("java");
+    }
+
+    @Test
+    public void testAmbiguousNameInCodeIsReported() throws IOException {
+        List<ASMCompiler.Message> errorMessages = resolveWithAmbiguousImports("class {+public Object getValue() {return TestClassStaticField.myField;}}");
+
+        assertEquals(1, errorMessages.size());
+        assertTrue(errorMessages.get(0).toString().contains("Ambiguous class name TestClassStaticField"));
+    }
+
+    @Test
+    public void testAmbiguousNameShadowedByParameterIsNotReported() throws IOException {
+        List<ASMCompiler.Message> errorMessages = resolveWithAmbiguousImports("class {+public Object getValue(Object TestClassStaticField) {return TestClassStaticField.myField;}}");
+
+        assertEquals(Collections.emptyList(), errorMessages);
+    }
+
+    @Test
+    public void testAmbiguousNameShadowedByVariableIsNotReported() throws IOException {
+        List<ASMCompiler.Message> errorMessages = resolveWithAmbiguousImports("class {+public Object getValue() {Object TestClassStaticField = null; return TestClassStaticField.myField;}}");
+
+        assertEquals(Collections.emptyList(), errorMessages);
+    }
+
+    @Test
+    public void testAmbiguousNameShadowedByFieldIsNotReported() throws IOException {
+        List<ASMCompiler.Message> errorMessages = resolveWithAmbiguousImports("class {+public Object TestClassStaticField; +public Object getValue() {return TestClassStaticField.myField;}}");
+
+        assertEquals(Collections.emptyList(), errorMessages);
+    }
+
+    @Test
+    public void testNameIsResolvedAsClassUpToFirstClass() throws IOException {
+        CommonClassResolver resolver = createResolver();
+        resolver.importPackage("java.lang");
+        List<String> resolvedNames = new ArrayList<>();
+        ClassResolver recordingResolver = new ClassResolver() {
+            @Override
+            public String resolveClassName(String className) {
+                resolvedNames.add(className);
+                return resolver.resolveClassName(className);
+            }
+        };
+
+        List<ASMCompiler.Message> errorMessages = resolve(recordingResolver, "class {+public int getValue() {return java.lang.String.CASE_INSENSITIVE_ORDER.hashCode();}}");
+
+        assertEquals(Collections.emptyList(), errorMessages);
+        // The return type is resolved as well
+        assertEquals(Arrays.asList("int", "java", "java.lang", "java.lang.String"), resolvedNames);
+    }
+
+    private List<ASMCompiler.Message> resolveWithAmbiguousImports(String source) throws IOException {
+        CommonClassResolver resolver = createResolver();
+        resolver.importPackage("java.lang");
+        resolver.importPackage("jasy");
+        resolver.importPackage("jasy.other");
+
+        return resolve(resolver, source);
+    }
+
+    private List<ASMCompiler.Message> resolve(ClassResolver resolver, String source) throws IOException {
+        ModuleAST module = new ASMCompiler(resolver).compile(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        List<ASMCompiler.Message> errorMessages = new ArrayList<>();
+        module.resolve(null, null, resolver, getClass().getClassLoader(), errorMessages);
+        return errorMessages;
+    }
+}
@@ -0,0 +1,107 @@
+package jasy.lang;
+
+import jasy.lang.ast.Transformation;
+import jasy.runtime.asm.ClassTransformerSequence;
+import jasy.runtime.asm.FirstByIndexTransformer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+public class ExhaustiveClassTransformerTest {
+    private static byte[] createClass(String internalName) {
+        ClassWriter classWriter = new ClassWriter(0);
+        classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null);
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    private static List<String> getFieldNames(byte[] classBytes) {
+        ClassNode classNode = new ClassNode();
+        new ClassReader(classBytes).accept(classNode, 0);
+        return ((List<FieldNode>)classNode.fields).stream().map(f -> f.name).collect(Collectors.toList());
+    }
+
+    private static void addField(ClassNode classNode, String name) {
+        classNode.fields.add(new FieldNode(Opcodes.ACC_PUBLIC, name, "I", null, null));
+    }
+
+    private static FirstByIndexTransformer<Transformation<ClassNode>> createFirstByIndexTransformer(String... fieldNames) {
+        FirstByIndexTransformer<Transformation<ClassNode>> transformer = new FirstByIndexTransformer<>(c -> c.getAppliedTransformers());
+        for(String fieldName: fieldNames)
+            transformer.addTransformer(c -> () -> addField(c.getTarget(), fieldName));
+        return transformer;
+    }
+
+    @Test
+    public void testFirstByIndexAppliesEachTransformerOnce() {
+        for(boolean singlePass: Arrays.asList(true, false)) {
+            ExhaustiveClassTransformer transformer = new ExhaustiveClassTransformer(createFirstByIndexTransformer("a", "b", "c"), singlePass);
+
+            assertEquals(Arrays.asList("a", "b", "c"), getFieldNames(transformer.transform(createClass("test/C"))));
+        }
+    }
+
+    @Test
+    public void testAppliedTransformersAreKeptPerTransformation() {
+        ExhaustiveClassTransformer transformer = new ExhaustiveClassTransformer(createFirstByIndexTransformer("a", "b"));
+        byte[] classBytes = createClass("test/C");
+
+        // E.g. the same class through another class loader or a retransformation
+        assertEquals(Arrays.asList("a", "b"), getFieldNames(transformer.transform(classBytes)));
+        assertEquals(Arrays.asList("a", "b"), getFieldNames(transformer.transform(classBytes)));
+    }
+
+    @Test
+    public void testFirstByIndexUsesBitSetOfTransformation() {
+        FirstByIndexTransformer<Transformation<ClassNode>> transformer = createFirstByIndexTransformer("a", "b");
+        BitSet appliedTransformers = new BitSet();
+        appliedTransformers.set(0);
+        Transformation<ClassNode> transformation = new Transformation<>(new ClassNode(), appliedTransformers);
+
+        transformer.apply(transformation).run();
+
+        assertEquals(Arrays.asList("b"), ((List<FieldNode>)transformation.getTarget().fields).stream().map(f -> f.name).collect(Collectors.toList()));
+        assertEquals(2, appliedTransformers.cardinality());
+        assertNull(transformer.apply(transformation));
+    }
+
+    @Test
+    public void testSequenceSkipsTransformersWhichCannotBeApplied() {
+        ArrayList<String> resolved = new ArrayList<>();
+        ClassTransformerSequence sequence = new ClassTransformerSequence();
+        sequence.addTransformer(classNode -> {
+            resolved.add("a");
+            return c -> addField(c, "a");
+        });
+        sequence.addTransformer(classNode -> {
+            resolved.add("b");
+            // Only applies once a has been applied
+            return classNode.fields.isEmpty() ? null : c -> addField(c, "b");
+        });
+
+        for(boolean singlePass: Arrays.asList(true, false)) {
+            resolved.clear();
+            ExhaustiveClassTransformer transformer = new ExhaustiveClassTransformer(sequence, singlePass);
+
+            assertEquals(Arrays.asList("a", "b"), getFieldNames(transformer.transform(createClass("test/C"))));
+            assertEquals(Arrays.asList("a", "b"), resolved);
+        }
+    }
+
+    @Test
+    public void testUnchangedClassIsReturnedAsIs() {
+        ExhaustiveClassTransformer transformer = new ExhaustiveClassTransformer(createFirstByIndexTransformer());
+        byte[] classBytes = createClass("test/C");
+
+        assertSame(classBytes, transformer.transform(classBytes));
+    }
+}
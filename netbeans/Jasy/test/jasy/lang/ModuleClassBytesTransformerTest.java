@@ -0,0 +1,72 @@
+package jasy.lang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ModuleClassBytesTransformerTest {
+    private static ModuleClassBytesTransformer createTransformer() {
+        CommonClassMap classMap = new CommonClassMap();
+        classMap.addClassName("jasy.TestClass1");
+        ModuleClassBytesTransformer transformer = new ModuleClassBytesTransformer("class jasy.TestClass1 {+public int addedField = 1;}", new CommonClassResolver(classMap));
+        transformer.initialize(ModuleClassBytesTransformerTest.class.getClassLoader());
+        return transformer;
+    }
+
+    private URLClassLoader createClassLoader() {
+        // The meta code of the module must be able to see the classes of Jasy
+        return new URLClassLoader(new URL[0], getClass().getClassLoader());
+    }
+
+    @Test
+    public void testTransformerIsKeptUntilInvalidated() throws IOException {
+        ModuleClassBytesTransformer transformer = createTransformer();
+
+        try(URLClassLoader classLoader = createClassLoader(); URLClassLoader otherClassLoader = createClassLoader()) {
+            ExhaustiveClassTransformer eTransformer = transformer.getTransformer(classLoader);
+
+            assertSame(eTransformer, transformer.getTransformer(classLoader));
+            assertNotSame(eTransformer, transformer.getTransformer(otherClassLoader));
+
+            transformer.invalidate(classLoader);
+
+            assertNotSame(eTransformer, transformer.getTransformer(classLoader));
+        }
+    }
+
+    @Test
+    public void testTransformerDoesNotKeepClassLoaderAlive() throws Exception {
+        ModuleClassBytesTransformer transformer = createTransformer();
+        byte[] classBytes = readClassBytes(jasy.TestClass1.class);
+
+        URLClassLoader classLoader = createClassLoader();
+        assertNotSame(classBytes, transformer.transform(classLoader, classBytes));
+
+        WeakReference<ClassLoader> classLoaderReference = new WeakReference<>(classLoader);
+        classLoader.close();
+        classLoader = null;
+
+        for(int i = 0; i < 10 && classLoaderReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(classLoaderReference.get());
+    }
+
+    private static byte[] readClassBytes(Class<?> c) throws IOException {
+        try(InputStream classStream = c.getResourceAsStream(c.getSimpleName() + ".class")) {
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while((length = classStream.read(buffer)) != -1)
+                classBytes.write(buffer, 0, length);
+            return classBytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package jasy.lang;
+
+import jasy.lang.ast.ModuleAST;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ModulePlanTest {
+    private static final String SOURCE = "class jasy.TestClass1 {+public int someOtherField;}";
+
+    private Path planFile;
+
+    @Before
+    public void setUp() throws IOException {
+        planFile = Files.createTempFile("jasy-plan", ".jasyp");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(planFile);
+    }
+
+    @Test
+    public void testPlanRoundTrip() throws IOException {
+        ModulePlan.compile(SOURCE).write(planFile);
+        byte[] planBytes = Files.readAllBytes(planFile);
+
+        assertTrue(ModulePlan.isPlan(planBytes));
+
+        for(ModulePlan plan: Arrays.asList(ModulePlan.read(planFile), ModulePlan.read(planBytes, planFile.toString()))) {
+            assertEquals(SOURCE, plan.getSource());
+
+            ModuleAST module = plan.getModule();
+            assertNotSame(module, plan.getModule());
+
+            CommonClassMap classMap = new CommonClassMap();
+            classMap.addClassName("jasy.TestClass1");
+            ClassResolver resolver = new CommonClassResolver(classMap);
+            List<ASMCompiler.Message> errorMessages = new ArrayList<>();
+            module.resolve(null, null, resolver, getClass().getClassLoader(), errorMessages);
+
+            assertEquals(Arrays.asList(), errorMessages);
+            assertEquals(1, module.classes.size());
+            assertEquals("jasy.TestClass1", module.classes.get(0).type.name);
+        }
+    }
+
+    @Test
+    public void testPlanOfOtherVersionIsRejectedWithSource() throws IOException {
+        writeStalePlan(planFile, SOURCE);
+
+        assertRejected("was written by Jasy version 0.0-stale");
+
+        try {
+            ModulePlan.read(Files.readAllBytes(planFile), planFile.toString());
+            fail();
+        } catch (StalePlanException ex) {
+            assertEquals("0.0-stale", ex.getVersion());
+            assertEquals(SOURCE, ex.getSource());
+        }
+    }
+
+    /**
+     * Writes a plan of source as if it was written by another Jasy version.
+     */
+    public static void writeStalePlan(Path planFile, String source) throws IOException {
+        ModulePlan.compile(source).write(planFile);
+        byte[] planBytes = Files.readAllBytes(planFile);
+
+        // Replace the version, which follows the magic number and format version
+        int versionLength = ByteBuffer.wrap(planBytes).getShort(8) & 0xFFFF;
+        ByteArrayOutputStream staleBytes = new ByteArrayOutputStream();
+        try(DataOutputStream output = new DataOutputStream(staleBytes)) {
+            output.write(planBytes, 0, 8);
+            output.writeUTF("0.0-stale");
+            output.write(planBytes, 10 + versionLength, planBytes.length - 10 - versionLength);
+        }
+        Files.write(planFile, staleBytes.toByteArray());
+    }
+
+    @Test
+    public void testPlanOfOtherFormatIsRejected() throws IOException {
+        ModulePlan.compile(SOURCE).write(planFile);
+        byte[] planBytes = Files.readAllBytes(planFile);
+        ByteBuffer.wrap(planBytes).putInt(4, 2);
+        Files.write(planFile, planBytes);
+
+        assertRejected("unsupported format version");
+    }
+
+    @Test
+    public void testSourceIsNotAPlan() throws IOException {
+        byte[] sourceBytes = SOURCE.getBytes("UTF-8");
+        Files.write(planFile, sourceBytes);
+
+        assertFalse(ModulePlan.isPlan(sourceBytes));
+        assertFalse(ModulePlan.isPlan(new byte[]{0x4A}));
+        assertRejected("is not a module plan");
+    }
+
+    private void assertRejected(String expectedMessage) {
+        try {
+            ModulePlan.read(planFile);
+            fail();
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(expectedMessage));
+        }
+    }
+}
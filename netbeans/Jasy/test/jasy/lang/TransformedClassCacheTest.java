@@ -0,0 +1,161 @@
+package jasy.lang;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TransformedClassCacheTest {
+    private static final String SOURCE = "class {+public int someField;}";
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jasy-cache");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try(Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testPendingEntries() throws IOException {
+        TransformedClassCache cache = TransformedClassCache.open(directory, SOURCE);
+        byte[] original = {1, 2, 3};
+        byte[] transformed = {4, 5};
+        byte[] unchanged = {6};
+        byte[] key = TransformedClassCache.getKey(original);
+        byte[] unchangedKey = TransformedClassCache.getKey(unchanged);
+
+        assertNull(cache.get(key, original));
+
+        cache.put(key, original, transformed);
+        cache.put(unchangedKey, unchanged, unchanged);
+
+        assertArrayEquals(transformed, cache.get(key, original));
+        assertSame(unchanged, cache.get(unchangedKey, unchanged));
+    }
+
+    @Test
+    public void testEntriesArePersistedByFlush() throws IOException {
+        byte[] original = {1, 2, 3};
+        byte[] transformed = {4, 5};
+        byte[] unchanged = {6};
+
+        TransformedClassCache cache = TransformedClassCache.open(directory, SOURCE);
+        cache.put(TransformedClassCache.getKey(original), original, transformed);
+        cache.put(TransformedClassCache.getKey(unchanged), unchanged, unchanged);
+        cache.flush();
+
+        TransformedClassCache reopenedCache = TransformedClassCache.open(directory, SOURCE);
+        byte[] otherUnchanged = unchanged.clone();
+
+        assertArrayEquals(transformed, reopenedCache.get(TransformedClassCache.getKey(original), original));
+        assertSame(otherUnchanged, reopenedCache.get(TransformedClassCache.getKey(otherUnchanged), otherUnchanged));
+        assertNull(reopenedCache.get(TransformedClassCache.getKey(transformed), transformed));
+    }
+
+    @Test
+    public void testEntriesAreKeptPerModule() throws IOException {
+        byte[] original = {1, 2, 3};
+
+        TransformedClassCache cache = TransformedClassCache.open(directory, SOURCE);
+        cache.put(TransformedClassCache.getKey(original), original, new byte[]{4});
+        cache.flush();
+
+        TransformedClassCache otherCache = TransformedClassCache.open(directory, SOURCE + " ");
+
+        assertNull(otherCache.get(TransformedClassCache.getKey(original), original));
+    }
+
+    @Test
+    public void testPendingEntriesAreFlushedAtThreshold() throws IOException {
+        TransformedClassCache cache = TransformedClassCache.open(directory, SOURCE, 3);
+
+        for(byte i = 0; i < 3; i++) {
+            byte[] original = {i};
+            cache.put(TransformedClassCache.getKey(original), original, new byte[]{i, i});
+        }
+
+        // Without an explicit flush
+        TransformedClassCache reopenedCache = TransformedClassCache.open(directory, SOURCE, 3);
+
+        for(byte i = 0; i < 3; i++) {
+            byte[] original = {i};
+            assertArrayEquals(new byte[]{i, i}, reopenedCache.get(TransformedClassCache.getKey(original), original));
+        }
+    }
+
+    @Test
+    public void testFlushMergesWithExistingEntries() throws IOException {
+        byte[] first = {1};
+        byte[] second = {2};
+
+        TransformedClassCache cache = TransformedClassCache.open(directory, SOURCE);
+        cache.put(TransformedClassCache.getKey(first), first, new byte[]{10});
+        cache.flush();
+        cache.put(TransformedClassCache.getKey(second), second, new byte[]{20});
+        cache.flush();
+
+        TransformedClassCache reopenedCache = TransformedClassCache.open(directory, SOURCE);
+
+        assertArrayEquals(new byte[]{10}, reopenedCache.get(TransformedClassCache.getKey(first), first));
+        assertArrayEquals(new byte[]{20}, reopenedCache.get(TransformedClassCache.getKey(second), second));
+    }
+
+    @Test
+    public void testFlushesAreMergedIntoFewSegments() throws IOException {
+        TransformedClassCache cache = TransformedClassCache.open(directory, SOURCE);
+
+        for(byte i = 0; i < 64; i++) {
+            byte[] original = {i};
+            cache.put(TransformedClassCache.getKey(original), original, new byte[]{i, i});
+            cache.flush();
+        }
+
+        // Segments at least double in size from the newest to the oldest
+        assertTrue(countSegments() <= 7);
+
+        TransformedClassCache reopenedCache = TransformedClassCache.open(directory, SOURCE);
+
+        for(byte i = 0; i < 64; i++) {
+            byte[] original = {i};
+            assertArrayEquals(new byte[]{i, i}, reopenedCache.get(TransformedClassCache.getKey(original), original));
+        }
+    }
+
+    @Test
+    public void testNewerEntryTakesPrecedence() throws IOException {
+        byte[] original = {1};
+        byte[] key = TransformedClassCache.getKey(original);
+
+        TransformedClassCache cache = TransformedClassCache.open(directory, SOURCE);
+        cache.put(key, original, new byte[]{10});
+        cache.flush();
+        cache.put(key, original, new byte[]{11});
+        cache.flush();
+
+        assertEquals(1, countSegments());
+        assertArrayEquals(new byte[]{11}, TransformedClassCache.open(directory, SOURCE).get(key, original));
+    }
+
+    private long countSegments() throws IOException {
+        try(Stream<Path> files = Files.walk(directory)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".segment")).count();
+        }
+    }
+
+    @Test
+    public void testVersionIdentifiesBuild() {
+        assertFalse(JasyVersion.get().startsWith("unknown"));
+    }
+}
@@ -0,0 +1,35 @@
+package jasy.lang;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TypeModelTest {
+    @Test
+    public void testClassIsReadFromClassFile() {
+        TypeModel model = TypeModel.forName("java.lang.Runnable", getClass().getClassLoader());
+
+        assertEquals("java/lang/Runnable", model.getName());
+        assertTrue(model.isInterface());
+        assertSame(model, TypeModel.forName("java/lang/Runnable", getClass().getClassLoader()));
+    }
+
+    @Test
+    public void testClassIsNotLoaded() {
+        ClassLoader classLoader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                throw new ClassNotFoundException(name);
+            }
+        };
+
+        TypeModel model = TypeModel.forName(getClass().getName(), classLoader);
+
+        assertEquals("jasy/lang/TypeModelTest", model.getName());
+        assertFalse(model.isInterface());
+    }
+
+    @Test
+    public void testMissingClass() {
+        assertNull(TypeModel.forName("jasy.lang.NoSuchClass", getClass().getClassLoader()));
+    }
+}
@@ -0,0 +1,114 @@
+package jasy.lang.ast;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MemberIndexTest {
+    public static class Consumer {
+        public static void consume(jasy.TestClass1 argument) { }
+    }
+
+    private static Set<String> toStrings(List<?> members) {
+        return members.stream().map(m -> m.toString()).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testCompatibleMethods() throws NoSuchMethodException {
+        MemberIndex index = MemberIndex.of(String.class);
+
+        assertEquals(
+            Arrays.asList(String.class.getMethod("valueOf", int.class)),
+            index.getCompatibleMethods(true, "valueOf", Arrays.asList(int.class)));
+        assertEquals(
+            Arrays.asList(String.class.getMethod("indexOf", String.class)),
+            index.getCompatibleMethods(false, "indexOf", Arrays.asList(String.class)));
+        assertTrue(index.getCompatibleMethods(true, "indexOf", Arrays.asList(String.class)).isEmpty());
+        assertTrue(index.getCompatibleMethods(false, "indexOf", Arrays.asList(String.class, String.class)).isEmpty());
+    }
+
+    @Test
+    public void testNullArgumentFitsReferenceTypes() throws NoSuchMethodException {
+        MemberIndex index = MemberIndex.of(String.class);
+
+        assertEquals(
+            new HashSet<>(Arrays.asList(
+                String.class.getMethod("valueOf", Object.class).toString(),
+                String.class.getMethod("valueOf", char[].class).toString())),
+            toStrings(index.getCompatibleMethods(true, "valueOf", Arrays.asList((Class<?>)null))));
+    }
+
+    @Test
+    public void testCompatibleConstructors() throws NoSuchMethodException {
+        MemberIndex index = MemberIndex.of(StringBuilder.class);
+
+        assertEquals(
+            Arrays.asList(StringBuilder.class.getConstructor(int.class)),
+            index.getCompatibleConstructors(Arrays.asList(int.class)));
+        assertEquals(
+            new HashSet<>(Arrays.asList(
+                StringBuilder.class.getConstructor(String.class).toString(),
+                StringBuilder.class.getConstructor(CharSequence.class).toString())),
+            toStrings(index.getCompatibleConstructors(Arrays.asList(String.class))));
+    }
+
+    @Test
+    public void testResolutionsAreCached() {
+        MemberIndex index = MemberIndex.of(String.class);
+
+        List<Method> methods = index.getCompatibleMethods(true, "valueOf", Arrays.asList(long.class));
+        List<Constructor<?>> constructors = index.getCompatibleConstructors(Arrays.asList(String.class));
+
+        assertSame(methods, index.getCompatibleMethods(true, "valueOf", Arrays.asList(long.class)));
+        assertSame(constructors, index.getCompatibleConstructors(Arrays.asList(String.class)));
+        assertNotSame(methods, index.getCompatibleMethods(false, "valueOf", Arrays.asList(long.class)));
+    }
+
+    @Test
+    public void testSameNamedArgumentTypesOfOtherClassLoaderAreDistinguished() throws Exception {
+        URL testClasses = getClass().getProtectionDomain().getCodeSource().getLocation();
+        try(URLClassLoader classLoader = new URLClassLoader(new URL[]{testClasses}, null)) {
+            Class<?> otherArgumentType = Class.forName("jasy.TestClass1", false, classLoader);
+            MemberIndex index = MemberIndex.of(Consumer.class);
+
+            assertTrue(index.getCompatibleMethods(true, "consume", Arrays.asList(otherArgumentType)).isEmpty());
+            assertEquals(
+                Arrays.asList(Consumer.class.getMethod("consume", jasy.TestClass1.class)),
+                index.getCompatibleMethods(true, "consume", Arrays.asList(jasy.TestClass1.class)));
+            assertTrue(index.getCompatibleMethods(true, "consume", Arrays.asList(otherArgumentType)).isEmpty());
+        }
+    }
+
+    @Test
+    public void testArgumentTypesAreNotKeptAlive() throws Exception {
+        URL testClasses = getClass().getProtectionDomain().getCodeSource().getLocation();
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{testClasses}, null);
+        Class<?> argumentType = Class.forName("jasy.TestClass1", false, classLoader);
+        assertNotSame(jasy.TestClass1.class, argumentType);
+
+        List<Method> methods = MemberIndex.of(Objects.class).getCompatibleMethods(true, "equals", Arrays.asList(argumentType, argumentType));
+        assertEquals(1, methods.size());
+
+        WeakReference<ClassLoader> classLoaderReference = new WeakReference<>(classLoader);
+        classLoader.close();
+        classLoader = null;
+        argumentType = null;
+
+        for(int i = 0; i < 10 && classLoaderReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(classLoaderReference.get());
+    }
+}
@@ -0,0 +1,73 @@
+package jasy.lang.ast;
+
+import jasy.lang.TransformationDiagnostics;
+import java.util.Arrays;
+import java.util.function.Predicate;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+public class MemberMatcherGeneratorTest {
+    private static TypeAST type(Class<?> c) {
+        return new NameTypeAST(null, c);
+    }
+
+    private static MethodNode method(int access, String name, String desc) {
+        return new MethodNode(access, name, desc, null, null);
+    }
+
+    private static FieldNode field(int access, String name, String desc) {
+        return new FieldNode(access, name, desc, null, null);
+    }
+
+    @Test
+    public void testMultiParameterMethodSelector() {
+        MemberMatcherGenerator generator = new MemberMatcherGenerator("test/C");
+        Predicate<MethodNode> selector = generator.addMethodSelector(Opcodes.ACC_PUBLIC, false, type(String.class), "get", Arrays.asList(type(String.class), type(int.class), type(long[].class)));
+        generator.generate(TransformationDiagnostics.OFF);
+
+        assertTrue(selector.test(method(Opcodes.ACC_PUBLIC, "get", "(Ljava/lang/String;I[J)Ljava/lang/String;")));
+        // Parameters in another order, a missing parameter, or another return type
+        assertFalse(selector.test(method(Opcodes.ACC_PUBLIC, "get", "(ILjava/lang/String;[J)Ljava/lang/String;")));
+        assertFalse(selector.test(method(Opcodes.ACC_PUBLIC, "get", "(Ljava/lang/String;I)Ljava/lang/String;")));
+        assertFalse(selector.test(method(Opcodes.ACC_PUBLIC, "get", "(Ljava/lang/String;I[J)V")));
+        // Another name, access, or a static method
+        assertFalse(selector.test(method(Opcodes.ACC_PUBLIC, "set", "(Ljava/lang/String;I[J)Ljava/lang/String;")));
+        assertFalse(selector.test(method(Opcodes.ACC_PRIVATE, "get", "(Ljava/lang/String;I[J)Ljava/lang/String;")));
+        assertFalse(selector.test(method(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "get", "(Ljava/lang/String;I[J)Ljava/lang/String;")));
+    }
+
+    @Test
+    public void testPartialMethodSelectors() {
+        MemberMatcherGenerator generator = new MemberMatcherGenerator("test/C");
+        Predicate<MethodNode> parametersOnly = generator.addMethodSelector(null, null, null, null, Arrays.asList(type(int.class), type(int.class)));
+        Predicate<MethodNode> returnTypeOnly = generator.addMethodSelector(null, null, type(int.class), null, null);
+        generator.generate(TransformationDiagnostics.OFF);
+
+        assertTrue(parametersOnly.test(method(Opcodes.ACC_STATIC, "add", "(II)I")));
+        assertTrue(parametersOnly.test(method(0, "put", "(II)V")));
+        assertFalse(parametersOnly.test(method(0, "put", "(III)V")));
+        assertTrue(returnTypeOnly.test(method(0, "add", "(II)I")));
+        assertFalse(returnTypeOnly.test(method(0, "put", "(II)V")));
+        assertFalse(returnTypeOnly.test(method(0, "get", "()[I")));
+    }
+
+    @Test
+    public void testFieldSelectors() {
+        MemberMatcherGenerator generator = new MemberMatcherGenerator("test/C");
+        Predicate<FieldNode> typed = generator.addFieldSelector(null, null, type(String.class), null);
+        Predicate<FieldNode> nonStatic = generator.addFieldSelector(Opcodes.ACC_PUBLIC, false, null, "value");
+        Predicate<FieldNode> isStatic = generator.addFieldSelector(null, true, null, null);
+        generator.generate(TransformationDiagnostics.OFF);
+
+        assertTrue(typed.test(field(0, "name", "Ljava/lang/String;")));
+        assertFalse(typed.test(field(0, "name", "Ljava/lang/Object;")));
+        assertTrue(nonStatic.test(field(Opcodes.ACC_PUBLIC, "value", "I")));
+        assertFalse(nonStatic.test(field(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "value", "I")));
+        assertFalse(nonStatic.test(field(Opcodes.ACC_PROTECTED, "value", "I")));
+        assertTrue(isStatic.test(field(Opcodes.ACC_STATIC, "value", "I")));
+        assertFalse(isStatic.test(field(0, "value", "I")));
+    }
+}
@@ -0,0 +1,73 @@
+package jasy.runtime.agent;
+
+import jasy.TestClass1;
+import jasy.TestClass2;
+import jasy.lang.ModulePlan;
+import jasy.lang.ModulePlanTest;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AgentTest {
+    private static final String SOURCE = "class jasy.TestClass1 {+public int someOtherField;}";
+
+    private Path moduleFile;
+
+    @Before
+    public void setUp() throws IOException {
+        moduleFile = Files.createTempFile("jasy-module", ".jasyp");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(moduleFile);
+    }
+
+    @Test
+    public void testSourceIsLoaded() throws IOException {
+        Files.write(moduleFile, SOURCE.getBytes(StandardCharsets.UTF_8));
+
+        assertLoaded();
+    }
+
+    @Test
+    public void testPlanIsLoaded() throws IOException {
+        ModulePlan.compile(SOURCE).write(moduleFile);
+
+        assertLoaded();
+    }
+
+    @Test
+    public void testSourceOfStalePlanIsLoaded() throws IOException {
+        ModulePlanTest.writeStalePlan(moduleFile, SOURCE);
+
+        assertLoaded();
+    }
+
+    @Test
+    public void testAgentmainRetransformsLoadedClasses() throws Exception {
+        Files.write(moduleFile, SOURCE.getBytes(StandardCharsets.UTF_8));
+        ModuleReloaderTest.TestInstrumentation inst = new ModuleReloaderTest.TestInstrumentation(TestClass1.class, TestClass2.class);
+
+        Agent.agentmain(moduleFile.toString(), inst.toInstrumentation());
+
+        assertTrue(inst.retransformed.await(10, TimeUnit.SECONDS));
+        assertEquals(1, inst.transformers.size());
+        assertEquals(Arrays.asList(TestClass1.class), inst.retransformedClasses);
+        assertTrue(ModuleReloaderTest.getFieldNames(inst.load(TestClass1.class, null)).contains("someOtherField"));
+    }
+
+    private void assertLoaded() throws IOException {
+        Agent.LoadedModule loadedModule = Agent.loadModule(moduleFile.toString());
+
+        assertEquals(SOURCE, loadedModule.source);
+        assertEquals(1, loadedModule.module.classes.size());
+    }
+}
@@ -0,0 +1,240 @@
+package jasy.runtime.agent;
+
+import jasy.TestClass1;
+import jasy.TestClass2;
+import jasy.lang.ASMCompiler;
+import jasy.lang.ClassResolver;
+import jasy.lang.CommonClassMap;
+import jasy.lang.CommonClassResolver;
+import jasy.lang.ast.ModuleAST;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+public class ModuleReloaderTest {
+    /**
+     * Records the calls of the reloader. The Instrumentation is created as a
+     * proxy, since its methods differ between Java versions. Retransformation
+     * fails for a batch, which contains any of the failing classes.
+     */
+    static class TestInstrumentation implements InvocationHandler {
+        private final List<Class<?>> loadedClasses;
+        final List<ClassFileTransformer> transformers = new ArrayList<>();
+        final List<Class<?>> retransformedClasses = new ArrayList<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+        final Set<Class<?>> failingClasses = new HashSet<>();
+        // Counted down after each batch, since the agent retransforms in the background
+        final CountDownLatch retransformed = new CountDownLatch(1);
+
+        public TestInstrumentation(Class<?>... loadedClasses) {
+            this.loadedClasses = Arrays.asList(loadedClasses);
+        }
+
+        public Instrumentation toInstrumentation() {
+            return (Instrumentation)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Instrumentation.class}, this);
+        }
+
+        /**
+         * Passes the class file of c through the registered transformers.
+         */
+        public byte[] load(Class<?> c, Class<?> classBeingRedefined) throws IllegalClassFormatException {
+            byte[] classBytes = readClassBytes(c);
+            for(ClassFileTransformer transformer: transformers) {
+                byte[] newClassBytes = transformer.transform(c.getClassLoader(), c.getName().replace('.', '/'), classBeingRedefined, null, classBytes);
+                if(newClassBytes != null)
+                    classBytes = newClassBytes;
+            }
+            return classBytes;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch(method.getName()) {
+                case "addTransformer":
+                    assertTrue(args.length == 2 && (Boolean)args[1]);
+                    transformers.add((ClassFileTransformer)args[0]);
+                    return null;
+                case "removeTransformer":
+                    return transformers.remove((ClassFileTransformer)args[0]);
+                case "isRetransformClassesSupported":
+                    return true;
+                case "retransformClasses":
+                    retransformClasses((Class<?>[])args[0]);
+                    return null;
+                case "isModifiableClass":
+                    return ((Class<?>)args[0]).getClassLoader() != null;
+                case "getAllLoadedClasses":
+                    return loadedClasses.toArray(new Class<?>[loadedClasses.size()]);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private void retransformClasses(Class<?>[] classes) throws IllegalClassFormatException, UnmodifiableClassException {
+            batchSizes.add(classes.length);
+            for(Class<?> c: classes) {
+                if(failingClasses.contains(c))
+                    throw new UnmodifiableClassException(c.getName());
+            }
+            for(Class<?> c: classes) {
+                load(c, c);
+                retransformedClasses.add(c);
+            }
+            retransformed.countDown();
+        }
+    }
+
+    static byte[] readClassBytes(Class<?> c) {
+        try(InputStream classStream = c.getResourceAsStream(c.getSimpleName() + ".class")) {
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while((length = classStream.read(buffer)) != -1)
+                classBytes.write(buffer, 0, length);
+            return classBytes.toByteArray();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    static List<String> getFieldNames(byte[] classBytes) {
+        ClassNode classNode = new ClassNode();
+        new ClassReader(classBytes).accept(classNode, 0);
+        return ((List<FieldNode>)classNode.fields).stream().map(f -> f.name).collect(Collectors.toList());
+    }
+
+    private ClassResolver classResolver;
+
+    private ModuleReloader createReloader(TestInstrumentation inst) {
+        CommonClassMap classMap = new CommonClassMap();
+        classMap.addClassName("jasy.TestClass1");
+        classMap.addClassName("jasy.TestClass2");
+        classResolver = new CommonClassResolver(classMap);
+        return new ModuleReloader(inst.toInstrumentation(), null, classResolver, getClass().getClassLoader(), null);
+    }
+
+    private ModuleAST compile(String source) throws IOException {
+        ModuleAST module = new ASMCompiler(classResolver).compile(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        ArrayList<ASMCompiler.Message> errorMessages = new ArrayList<>();
+        module.resolve(null, null, classResolver, getClass().getClassLoader(), errorMessages);
+        assertEquals(Arrays.asList(), errorMessages);
+        return module;
+    }
+
+    @Test
+    public void testReloadSwapsModuleWithinOneTransformer() throws Exception {
+        TestInstrumentation inst = new TestInstrumentation(TestClass1.class, TestClass2.class);
+        ModuleReloader reloader = createReloader(inst);
+        String source1 = "class jasy.TestClass1 {+public int addedField;}";
+        String source2 = "class jasy.TestClass2 {+public int addedField;}";
+
+        reloader.install(compile(source1), source1);
+
+        assertEquals(1, inst.transformers.size());
+        assertTrue(getFieldNames(inst.load(TestClass1.class, null)).contains("addedField"));
+        assertFalse(getFieldNames(inst.load(TestClass2.class, null)).contains("addedField"));
+
+        reloader.install(compile(source2), source2);
+
+        assertEquals(1, inst.transformers.size());
+        assertFalse(getFieldNames(inst.load(TestClass1.class, null)).contains("addedField"));
+        assertTrue(getFieldNames(inst.load(TestClass2.class, null)).contains("addedField"));
+    }
+
+    @Test
+    public void testReloadRetransformsTransformedAndSelectedClasses() throws Exception {
+        TestInstrumentation inst = new TestInstrumentation(TestClass1.class, TestClass2.class, ModuleReloaderTest.class, String.class);
+        ModuleReloader reloader = createReloader(inst);
+        String source1 = "class jasy.TestClass1 {+public int addedField;}";
+        String source2 = "class jasy.TestClass2 {+public int addedField;}";
+
+        reloader.install(compile(source1), source1);
+        inst.load(TestClass1.class, null);
+
+        assertEquals(Arrays.asList(), inst.retransformedClasses);
+
+        reloader.install(compile(source2), source2);
+
+        // The first class was transformed by the old module; the second one is selected by the new module
+        assertEquals(Arrays.asList(TestClass1.class, TestClass2.class), inst.retransformedClasses);
+        inst.retransformedClasses.clear();
+
+        reloader.install(compile(source2), source2);
+
+        // The first class is no longer transformed
+        assertEquals(Arrays.asList(TestClass2.class), inst.retransformedClasses);
+    }
+
+    @Test
+    public void testReloadOfModuleSelectingAnyClass() throws Exception {
+        TestInstrumentation inst = new TestInstrumentation(TestClass1.class, TestClass2.class, String.class);
+        ModuleReloader reloader = createReloader(inst);
+        String source = "class {+public int addedField;}";
+
+        reloader.install(compile(source), source);
+        reloader.install(compile(source), source);
+
+        assertEquals(Arrays.asList(TestClass1.class, TestClass2.class), inst.retransformedClasses);
+    }
+
+    @Test
+    public void testLoadedClassesSelectedByModuleAreRetransformed() throws Exception {
+        TestInstrumentation inst = new TestInstrumentation(TestClass1.class, TestClass2.class, ModuleReloaderTest.class, String.class);
+        ModuleReloader reloader = createReloader(inst);
+        String source = "class jasy.TestClass1 {+public int addedField;}";
+
+        reloader.install(compile(source), source);
+        reloader.retransformLoadedClasses();
+
+        assertEquals(Arrays.asList(TestClass1.class), inst.retransformedClasses);
+    }
+
+    @Test
+    public void testLoadedClassesAreRetransformedInBatches() throws Exception {
+        TestInstrumentation inst = new TestInstrumentation(Collections.nCopies(250, TestClass1.class).toArray(new Class<?>[0]));
+        ModuleReloader reloader = createReloader(inst);
+        String source = "class jasy.TestClass1 {+public int addedField;}";
+
+        reloader.install(compile(source), source);
+        reloader.retransformLoadedClasses();
+
+        assertEquals(Arrays.asList(100, 100, 50), inst.batchSizes);
+        assertEquals(250, inst.retransformedClasses.size());
+    }
+
+    @Test
+    public void testClassesOfFailedBatchAreRetriedOneByOne() throws Exception {
+        TestInstrumentation inst = new TestInstrumentation(TestClass1.class, TestClass2.class);
+        ModuleReloader reloader = createReloader(inst);
+        String source = "class {+public int addedField;}";
+        inst.failingClasses.add(TestClass1.class);
+
+        reloader.install(compile(source), source);
+        reloader.retransformLoadedClasses();
+
+        assertEquals(Arrays.asList(2, 1, 1), inst.batchSizes);
+        assertEquals(Arrays.asList(TestClass2.class), inst.retransformedClasses);
+    }
+}
@@ -0,0 +1,130 @@
+package jasy.runtime.asm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.objectweb.asm.tree.ClassNode;
+
+public class IfAllTransformerTest {
+    /**
+     * The straightforward form of IfAllTransformer, where predicates are
+     * transformers, which do nothing.
+     */
+    private static class ReferenceIfAllTransformer<T> implements CompositeTransformer<T> {
+        private final ArrayList<Function<T, Runnable>> transformers = new ArrayList<>();
+
+        @Override
+        public void addTransformer(Function<T, Runnable> transformer) {
+            transformers.add(transformer);
+        }
+
+        @Override
+        public Runnable apply(T obj) {
+            ArrayList<Runnable> applicableTransformers = new ArrayList<>();
+            for(Function<T, Runnable> transformer: transformers) {
+                Runnable t = transformer.apply(obj);
+                if(t == null)
+                    return null;
+                applicableTransformers.add(t);
+            }
+            return () -> applicableTransformers.forEach(t -> t.run());
+        }
+    }
+
+    @Test
+    public void testEquivalentToReference() {
+        Random random = new Random(0);
+
+        for(int i = 0; i < 1000; i++) {
+            int predicateCount = random.nextInt(4);
+            int transformerCount = random.nextInt(4);
+            int[] divisors = random.ints(predicateCount + transformerCount, 1, 4).toArray();
+            IfAllTransformer<Integer> transformer = new IfAllTransformer<>();
+            ReferenceIfAllTransformer<Integer> reference = new ReferenceIfAllTransformer<>();
+            ArrayList<String> actions = new ArrayList<>();
+            ArrayList<String> referenceActions = new ArrayList<>();
+
+            for(int j = 0; j < predicateCount; j++) {
+                int divisor = divisors[j];
+                Predicate<Integer> predicate = x -> x % divisor == 0;
+                transformer.addPredicate(predicate);
+                reference.addPredicate(predicate);
+            }
+            for(int j = 0; j < transformerCount; j++) {
+                int divisor = divisors[predicateCount + j];
+                String action = "t" + j;
+                transformer.addTransformer(x -> x % divisor == 0 ? () -> actions.add(action) : null);
+                reference.addTransformer(x -> x % divisor == 0 ? () -> referenceActions.add(action) : null);
+            }
+
+            for(int x = 0; x < 12; x++) {
+                Runnable t = transformer.apply(x);
+                Runnable referenceT = reference.apply(x);
+
+                assertEquals(referenceT != null, t != null);
+                if(t != null) {
+                    t.run();
+                    referenceT.run();
+                }
+            }
+
+            assertEquals(referenceActions, actions);
+        }
+    }
+
+    @Test
+    public void testPredicatesAreTestedInOrderUntilOneFails() {
+        ArrayList<String> tested = new ArrayList<>();
+        IfAllTransformer<Integer> transformer = new IfAllTransformer<>();
+        transformer.addPredicate(x -> tested.add("p1") && x > 0);
+        transformer.addPredicate(x -> tested.add("p2") && x > 1);
+        transformer.addPredicate(x -> tested.add("p3"));
+        transformer.addTransformer(x -> {
+            tested.add("t");
+            return () -> { };
+        });
+
+        assertNull(transformer.apply(1));
+        assertEquals(Arrays.asList("p1", "p2"), tested);
+
+        tested.clear();
+
+        assertNotNull(transformer.apply(2));
+        assertEquals(Arrays.asList("p1", "p2", "p3", "t"), tested);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPredicateAfterTransformerIsRejected() {
+        IfAllTransformer<Integer> transformer = new IfAllTransformer<>();
+        transformer.addTransformer(x -> () -> { });
+        transformer.addPredicate(x -> true);
+    }
+
+    @Test
+    public void testCommonClassTransformer() {
+        List<String> performed = new ArrayList<>();
+        CommonClassTransformer transformer = new CommonClassTransformer();
+        transformer.addPredicate(c -> c.name.startsWith("test/"));
+        transformer.addPredicate(c -> c.name.endsWith("C"));
+        transformer.addAction(c -> performed.add("a1 " + c.name));
+        transformer.addAction(c -> performed.add("a2 " + c.name));
+        ClassNode matching = new ClassNode();
+        matching.name = "test/C";
+        ClassNode other = new ClassNode();
+        other.name = "test/D";
+
+        assertNull(transformer.resolve(other));
+
+        ClassAction action = transformer.resolve(matching);
+        action.perform(matching);
+
+        assertEquals(Arrays.asList("a1 test/C", "a2 test/C"), performed);
+        // Resolving allocates nothing; the same action is returned for each match
+        assertSame(action, transformer.resolve(matching));
+    }
+}
@@ -0,0 +1,97 @@
+package jasy.runtime.javassist;
+
+import java.io.IOException;
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.NotFoundException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ClassPoolManagerTest {
+    private static byte[] createClassBytes(String name) throws IOException, CannotCompileException {
+        return new ClassPool(true).makeClass(name).toBytecode();
+    }
+
+    private static CtClass transform(ClassPoolManager manager, String name) throws IOException, CannotCompileException {
+        CtClass ctClass = manager.makeClass(createClassBytes(name));
+        manager.toBytecode(ctClass);
+        return ctClass;
+    }
+
+    private static boolean isRetained(ClassPoolManager manager, CtClass ctClass) {
+        try {
+            return manager.getClassPool().get(ctClass.getName()) == ctClass;
+        } catch (NotFoundException ex) {
+            return false;
+        }
+    }
+
+    @Test
+    public void testRetainedClassesAreBounded() throws Exception {
+        ClassPoolManager manager = new ClassPoolManager(new ClassPool(), 2);
+
+        CtClass a = transform(manager, "test.A");
+        CtClass b = transform(manager, "test.B");
+
+        assertTrue(isRetained(manager, a));
+        assertTrue(isRetained(manager, b));
+        assertEquals(2, manager.getRetainedClassCount());
+
+        CtClass c = transform(manager, "test.C");
+
+        assertFalse(isRetained(manager, a));
+        assertTrue(isRetained(manager, b));
+        assertTrue(isRetained(manager, c));
+        assertEquals(2, manager.getRetainedClassCount());
+        assertEquals(3, manager.getTransformedCount());
+        assertEquals(1, manager.getEvictionCount());
+    }
+
+    @Test
+    public void testClassesAreEvictedInTransformationOrder() throws Exception {
+        ClassPoolManager manager = new ClassPoolManager(new ClassPool(), 2);
+
+        transform(manager, "test.A");
+        CtClass b = transform(manager, "test.B");
+        // Transforming a class again counts as its latest transformation
+        CtClass a = transform(manager, "test.A");
+        CtClass c = transform(manager, "test.C");
+
+        assertTrue(isRetained(manager, a));
+        assertFalse(isRetained(manager, b));
+        assertTrue(isRetained(manager, c));
+        assertEquals(4, manager.getTransformedCount());
+        assertEquals(1, manager.getEvictionCount());
+    }
+
+    @Test
+    public void testNoClassesAreRetained() throws Exception {
+        ClassPoolManager manager = new ClassPoolManager(new ClassPool(), 0);
+
+        CtClass a = transform(manager, "test.A");
+
+        assertFalse(isRetained(manager, a));
+        assertEquals(0, manager.getRetainedClassCount());
+        assertEquals(1, manager.getTransformedCount());
+        assertEquals(0, manager.getEvictionCount());
+    }
+
+    @Test
+    public void testFailedClassIsDiscarded() throws Exception {
+        ClassPoolManager manager = new ClassPoolManager(new ClassPool(), 2);
+        CtClass a = manager.makeClass(createClassBytes("test.A"));
+        // A pruned class cannot be turned into bytecode
+        a.prune();
+
+        try {
+            manager.toBytecode(a);
+            fail();
+        } catch (RuntimeException ex) {
+        }
+
+        assertFalse(isRetained(manager, a));
+        assertEquals(0, manager.getRetainedClassCount());
+        assertEquals(0, manager.getTransformedCount());
+    }
+}